@@ -38,22 +38,36 @@
 
 package com.wearelast.mpcs;
 
+import android.animation.TimeInterpolator;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
 import android.graphics.BlurMaskFilter;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Path;
-import android.graphics.PathMeasure;
+import android.graphics.Picture;
 import android.graphics.RectF;
+import android.graphics.Shader;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcel;
 import android.os.Parcelable;
+import android.os.SystemClock;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import java.util.ArrayList;
-import java.util.ListIterator;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class CircularSeekBar extends View {
 
@@ -91,6 +105,42 @@ public class CircularSeekBar extends View {
 	protected static final boolean DEFAULT_MAINTAIN_EQUAL_CIRCLE = true;
 	protected static final boolean DEFAULT_MOVE_OUTSIDE_CIRCLE = false;
 	protected static final boolean DEFAULT_LOCK_ENABLED = true;
+	protected static final float DEFAULT_GLOW_RADIUS = 5f;
+	protected static final float DEFAULT_FLING_FRICTION = 4f;
+	protected static final float DEFAULT_MIN_FLING_VELOCITY = 60f;
+	protected static final float FLING_STOP_VELOCITY = 5f;
+
+	/**
+	 * No glow is drawn behind the progress arcs.
+	 */
+	public static final int GLOW_MODE_NONE = 0;
+
+	/**
+	 * The glow is drawn with a {@code BlurMaskFilter} on every frame. This is the original behavior.
+	 */
+	public static final int GLOW_MODE_MASK_FILTER = 1;
+
+	/**
+	 * The blurred ring is rendered once per size into an alpha-only bitmap, which is then
+	 * composited along each progress arc through a {@code BitmapShader}, tinted with the arc's color.
+	 */
+	public static final int GLOW_MODE_CACHED = 2;
+
+	/**
+	 * Listeners are notified for every touch sample. This is the original behavior.
+	 */
+	public static final int DISPATCH_EVERY_SAMPLE = 0;
+
+	/**
+	 * Changes made while dragging are recalculated and sent to listeners at most once per frame.
+	 */
+	public static final int DISPATCH_PER_FRAME = 1;
+
+	/**
+	 * Changes made while dragging are recalculated once per frame, but only sent to listeners
+	 * when the pointer is released.
+	 */
+	public static final int DISPATCH_ON_SETTLE = 2;
 
 	/**
 	 * {@code Paint} instance used to draw the inactive circle.
@@ -264,95 +314,407 @@ public class CircularSeekBar extends View {
 	protected boolean lockEnabled = true;
 
 	/**
-	 * Used for when the user moves beyond the start of the circle when moving counter clockwise.
-	 * Makes it easier to hit the 0 progress mark.
+	 * When the user is touching the circle on ACTION_DOWN, this is set to true.
+	 * Used when touching the CircularSeekBar.
 	 */
-	protected boolean lockAtStart = true;
+	protected boolean mUserIsMovingPointer = false;
 
 	/**
-	 * Used for when the user moves beyond the end of the circle when moving clockwise.
-	 * Makes it easier to hit the 100% (max) progress mark.
+	 * If true, the historical samples batched into each ACTION_MOVE are applied one by one,
+	 * followed by a single recalculation and listener call.
 	 */
-	protected boolean lockAtEnd = false;
+	protected boolean mProcessHistoricalTouches = false;
 
 	/**
-	 * When the user is touching the circle on ACTION_DOWN, this is set to true.
-	 * Used when touching the CircularSeekBar.
+	 * Maximum number of fingers that can drag pointers at the same time.
 	 */
-	protected boolean mUserIsMovingPointer = false;
+	protected static final int MAX_TOUCHES = CircularSeekBarModel.MAX_TOUCHES;
 
 	/**
-	 * Represents the clockwise distance from {@code mStartAngle} to the touch angle.
-	 * Used when touching the CircularSeekBar.
+	 * If true, additional fingers can drag other pointers at the same time.
 	 */
-	protected float cwDistanceFromStart;
+	protected boolean mMultiTouchEnabled = true;
 
 	/**
-	 * Represents the counter-clockwise distance from {@code mStartAngle} to the touch angle.
-	 * Used when touching the CircularSeekBar.
+	 * Whether each touch slot of {@code mModel} moved its pointer during the current ACTION_MOVE.
 	 */
-	protected float ccwDistanceFromStart;
+	protected final boolean[] mTouchMoved = new boolean[MAX_TOUCHES];
 
 	/**
-	 * Represents the clockwise distance from {@code mEndAngle} to the touch angle.
-	 * Used when touching the CircularSeekBar.
+	 * The width of the circle used in the {@code RectF} that is used to draw it.
+	 * Based on either the View width or the custom X radius.
 	 */
-	protected float cwDistanceFromEnd;
+	protected float mCircleWidth;
 
 	/**
-	 * Represents the counter-clockwise distance from {@code mEndAngle} to the touch angle.
-	 * Used when touching the CircularSeekBar.
-	 * Currently unused, but kept just in case.
+	 * The height of the circle used in the {@code RectF} that is used to draw it.
+	 * Based on either the View width or the custom Y radius.
 	 */
-	@SuppressWarnings("unused")
-	protected float ccwDistanceFromEnd;
+	protected float mCircleHeight;
 
 	/**
-	 * The previous touch action value for {@code cwDistanceFromStart}.
-	 * Used when touching the CircularSeekBar.
+	 * Listener.
 	 */
-	protected float lastCWDistanceFromStart;
+	protected OnCircularSeekBarChangeListener mOnCircularSeekBarChangeListener;
 
 	/**
-	 * Represents the clockwise distance from {@code mPointerPosition} to the touch angle.
-	 * Used when touching the CircularSeekBar.
+	 * True if user touch input is enabled, false if user touch input is ignored.
+	 * This does not affect setting values programmatically.
 	 */
-	protected float cwDistanceFromPointer;
+	protected boolean isTouchEnabled = true;
 
 	/**
-	 * Represents the counter-clockwise distance from {@code mPointerPosition} to the touch angle.
-	 * Used when touching the CircularSeekBar.
+	 * True when the circle size, angles or max have changed and every pointer must be rebuilt.
+	 * Cleared by {@code recalculateAll()}.
 	 */
-	protected float ccwDistanceFromPointer;
+	protected boolean mGeometryDirty = true;
 
 	/**
-	 * True if the user is moving clockwise around the circle, false if moving counter-clockwise.
-	 * Used when touching the CircularSeekBar.
+	 * True when the shared {@code Paint} instances were recreated, or a setting custom pointer paints are built from
+	 * changed, and every pointer must pick them up again. Cleared by {@code recalculateAll()} and {@code recalculateDirty()}.
 	 */
-	protected boolean mIsMovingCW;
+	protected boolean mPaintsDirty = true;
 
 	/**
-	 * The width of the circle used in the {@code RectF} that is used to draw it.
-	 * Based on either the View width or the custom X radius.
+	 * Pointers whose progress or colors changed since the last recalculation.
+	 * Only these are recomputed by {@code recalculateDirty()} when the geometry is clean.
 	 */
-	protected float mCircleWidth;
+	protected ArrayList<Pointer> mDirtyPointers = new ArrayList<>();
 
 	/**
-	 * The height of the circle used in the {@code RectF} that is used to draw it.
-	 * Based on either the View width or the custom Y radius.
+	 * How the glow behind the progress arcs is rendered. One of the {@code GLOW_MODE_} constants.
 	 */
-	protected float mCircleHeight;
+	protected int mGlowMode = GLOW_MODE_MASK_FILTER;
 
 	/**
-	 * Listener.
+	 * If false, the glow is skipped while the user is dragging a pointer.
 	 */
-	protected OnCircularSeekBarChangeListener mOnCircularSeekBarChangeListener;
+	protected boolean mGlowWhileDragging = true;
 
 	/**
-	 * True if user touch input is enabled, false if user touch input is ignored.
-	 * This does not affect setting values programmatically.
+	 * Shader-backed glow paint used by {@code GLOW_MODE_CACHED}. Its shader holds a single alpha mask
+	 * of the blurred ring, shared by every progress color. Cleared whenever the geometry is rebuilt.
 	 */
-	protected boolean isTouchEnabled = true;
+	protected Paint mCachedGlowPaint;
+
+	/**
+	 * If true, each part of the ring is drawn once, between a pointer and its lower neighbor,
+	 * instead of drawing every progress arc from {@code mStartAngle}.
+	 */
+	protected boolean mSegmentedProgress = false;
+
+	/**
+	 * True when the segment paths used by {@code mSegmentedProgress} must be rebuilt before drawing.
+	 */
+	protected boolean mSegmentsDirty = true;
+
+	/**
+	 * Nesting depth of {@code beginBatchUpdate()} calls. Greater than zero while a batch is open.
+	 */
+	protected int mBatchDepth = 0;
+
+	/**
+	 * Pointers whose progress changed during the current batch, notified when it ends.
+	 */
+	protected ArrayList<Pointer> mBatchChangedPointers = new ArrayList<>();
+
+	/**
+	 * If true, the track and track fill are recorded once into {@code Picture}s and replayed on each frame.
+	 */
+	protected boolean mTrackCaching = false;
+
+	/**
+	 * Recorded track, drawn under the progress arcs.
+	 */
+	protected Picture mTrackPicture = new Picture();
+
+	/**
+	 * Recorded track fill, drawn over the progress arcs.
+	 */
+	protected Picture mTrackFillPicture = new Picture();
+
+	/**
+	 * True when the size, angles or track colors changed since the track layers were recorded.
+	 */
+	protected boolean mTrackLayerDirty = true;
+
+	/**
+	 * If true, recalculations, draws, listener calls and touch-to-draw latency are recorded into {@code mMetrics}.
+	 */
+	protected boolean mMetricsEnabled = false;
+
+	/**
+	 * Counters recorded while {@code mMetricsEnabled} is set. Only written on the UI thread.
+	 */
+	protected final SeekBarMetrics mMetrics = new SeekBarMetrics();
+
+	/**
+	 * {@code MotionEvent} time (uptime milliseconds) of the oldest move not drawn yet, or -1.
+	 */
+	protected long mMetricsTouchEventTime = -1;
+
+	/**
+	 * If true, progress changes only invalidate the area around the moved thumbs and arcs.
+	 * Only software rendering benefits; hardware rendering redraws the whole view.
+	 */
+	protected boolean mPartialInvalidation = false;
+
+	/**
+	 * Area changed by recalculated pointers since the last {@code invalidateChanged()}, relative to the circle center.
+	 */
+	protected RectF mDirtyRegion = new RectF();
+
+	/**
+	 * True when nothing has been added to {@code mDirtyRegion} yet.
+	 */
+	protected boolean mDirtyRegionEmpty = true;
+
+	/**
+	 * True when the whole view must be invalidated, for example after {@code recalculateAll()}.
+	 */
+	protected boolean mDirtyRegionFull = false;
+
+	/**
+	 * When changes made while dragging are recalculated and sent to listeners. One of the {@code DISPATCH_} constants.
+	 */
+	protected int mDispatchPolicy = DISPATCH_EVERY_SAMPLE;
+
+	/**
+	 * Pointers with listener calls waiting for the next frame or for the pointer to be released.
+	 */
+	protected ArrayList<Pointer> mPendingDispatchPointers = new ArrayList<>();
+
+	/**
+	 * True while {@code mFrameCallback} is posted to the {@code Choreographer}.
+	 */
+	protected boolean mFrameCallbackPosted = false;
+
+	/**
+	 * Open progress streams. Each is fed every change the listeners are notified of.
+	 */
+	protected ArrayList<ProgressStream> mProgressStreams = new ArrayList<>();
+
+	/**
+	 * Recalculates and, for {@code DISPATCH_PER_FRAME}, notifies listeners once per frame.
+	 */
+	protected final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			mFrameCallbackPosted = false;
+			recalculateDirty();
+			invalidateChanged();
+			if (mDispatchPolicy == DISPATCH_PER_FRAME) {
+				flushPendingProgressChanges();
+			}
+		}
+	};
+
+	/**
+	 * If true, a pointer keeps moving along the arc after it is released, slowing down with {@code mFlingFriction}.
+	 */
+	protected boolean mFlingEnabled = false;
+
+	/**
+	 * How quickly a fling slows down, as the exponential decay rate of its velocity (per second).
+	 */
+	protected float mFlingFriction = DEFAULT_FLING_FRICTION;
+
+	/**
+	 * Slowest release, in degrees per second, that starts a fling.
+	 */
+	protected float mMinFlingVelocity = DEFAULT_MIN_FLING_VELOCITY;
+
+	/**
+	 * Tracks touch velocity while {@code mFlingEnabled} is set. Reused between gestures.
+	 */
+	protected VelocityTracker mVelocityTracker;
+
+	/**
+	 * The pointer being flung, or null when no fling is running.
+	 */
+	protected Pointer mFlingPointer;
+
+	/**
+	 * Current fling velocity in degrees per second; positive is clockwise.
+	 */
+	protected float mFlingVelocity;
+
+	/**
+	 * Unrounded sweep of the flung pointer, so slow flings still advance between whole steps.
+	 */
+	protected float mFlingSweep;
+
+	/**
+	 * Time of the previous fling frame, or -1 until the first frame.
+	 */
+	protected long mFlingLastFrameNanos = -1;
+
+	/**
+	 * Moves the flung pointer once per frame and lets its velocity decay.
+	 */
+	protected final Choreographer.FrameCallback mFlingFrameCallback = new Choreographer.FrameCallback() {
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			Pointer p = mFlingPointer;
+			if (p == null) {
+				return;
+			}
+			if (mFlingLastFrameNanos < 0) {
+				mFlingLastFrameNanos = frameTimeNanos;
+				getUiChoreographer().postFrameCallback(this);
+				return;
+			}
+			float elapsed = (frameTimeNanos - mFlingLastFrameNanos) / 1000000000f;
+			mFlingLastFrameNanos = frameTimeNanos;
+			float decay = (float) Math.exp(-mFlingFriction * elapsed);
+			// Exact distance covered by the decaying velocity, so the path does not depend on the frame rate
+			mFlingSweep += mFlingVelocity * (1f - decay) / mFlingFriction;
+			mFlingVelocity *= decay;
+			boolean stop = Math.abs(mFlingVelocity) < FLING_STOP_VELOCITY;
+			if (lockEnabled) {
+				if (mFlingSweep <= 0f) {
+					mFlingSweep = 0f;
+					stop = true;
+				} else if (mFlingSweep >= mTotalCircleDegrees) {
+					mFlingSweep = mTotalCircleDegrees;
+					stop = true;
+				}
+			} else {
+				mFlingSweep = ((mFlingSweep % mTotalCircleDegrees) + mTotalCircleDegrees) % mTotalCircleDegrees;
+			}
+
+			float progress = mModel.progressForSweep(mFlingSweep);
+			float exactProgress = mModel.isHighResolution() ? progress : Math.round(progress);
+			if (mPointerStore.exactProgress[p.mIndex] != exactProgress) {
+				mModel.setExactProgress(p.mIndex, exactProgress);
+				markPointerDirty(p);
+				recalculateDirty();
+				invalidateChanged();
+				dispatchUserProgressChanged(p);
+			}
+
+			if (stop) {
+				mFlingPointer = null;
+			} else {
+				getUiChoreographer().postFrameCallback(this);
+			}
+		}
+	};
+
+	/**
+	 * Start and target progress of each animated pointer, in pointer order. Reused between animations.
+	 * A NaN target leaves the pointer out of the animation.
+	 */
+	protected float[] mAnimationFrom = new float[0];
+	protected float[] mAnimationTo = new float[0];
+
+	/**
+	 * Number of pointers moved by the running animation, or 0 when no animation is running.
+	 */
+	protected int mAnimationCount = 0;
+
+	/**
+	 * Frame time the running animation started at, or -1 until its first frame.
+	 */
+	protected long mAnimationStartNanos = -1;
+	protected long mAnimationDurationNanos;
+	protected TimeInterpolator mAnimationInterpolator;
+
+	/**
+	 * Moves every animated pointer once per frame, as a single batch.
+	 */
+	protected final Choreographer.FrameCallback mAnimationFrameCallback = new Choreographer.FrameCallback() {
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			if (mAnimationCount == 0) {
+				return;
+			}
+			if (mAnimationStartNanos < 0) {
+				mAnimationStartNanos = frameTimeNanos;
+			}
+			float fraction = Math.min(1f, (float) (frameTimeNanos - mAnimationStartNanos) / (float) mAnimationDurationNanos);
+			float interpolated = (mAnimationInterpolator != null) ? mAnimationInterpolator.getInterpolation(fraction) : fraction;
+			int count = Math.min(mAnimationCount, pPointerList.size());
+			if (fraction >= 1f) {
+				mAnimationCount = 0;
+			}
+			beginBatchUpdate();
+			for (int i = 0; i < count; i++) {
+				float from = mAnimationFrom[i];
+				float to = mAnimationTo[i];
+				if (Float.isNaN(to)) {
+					continue;
+				}
+				// The last frame lands exactly on the target, whatever the interpolator returns
+				pPointerList.get(i).setExactProgress(fraction >= 1f ? to : from + ((to - from) * interpolated));
+			}
+			endBatchUpdate();
+			if (mAnimationCount > 0) {
+				getUiChoreographer().postFrameCallback(this);
+			}
+		}
+	};
+
+	/**
+	 * Latest progress snapshot published by {@code publishProgresses()}, or null once it has been applied.
+	 * Each snapshot is a private copy that is never written after it is published, so the UI thread reads it without a lock.
+	 */
+	protected final AtomicReference<int[]> mPublishedProgresses = new AtomicReference<int[]>();
+
+	/**
+	 * True while {@code mApplyPublishedProgresses} is posted and has not run yet, so publishing
+	 * many snapshots between two frames posts it only once.
+	 */
+	protected final AtomicBoolean mPublishScheduled = new AtomicBoolean();
+
+	/**
+	 * Handler of the main thread. Unlike {@code Choreographer.getInstance()} and {@code View.postOnAnimation()},
+	 * posting to it is safe from any thread, whether or not the view is attached.
+	 */
+	protected final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+	/**
+	 * The {@code Choreographer} of the UI thread, or null until {@code getUiChoreographer()} is first called.
+	 */
+	protected Choreographer mUiChoreographer;
+
+	/**
+	 * Posts {@code mApplyPublishedProgresses} once {@code publishProgresses()} has handed over to the UI thread.
+	 */
+	protected final Runnable mPostPublishedProgresses = new Runnable() {
+		@Override
+		public void run() {
+			getUiChoreographer().postFrameCallback(mApplyPublishedProgresses);
+		}
+	};
+
+	/**
+	 * Applies the latest published snapshot on the UI thread, as a single batch.
+	 */
+	protected final Choreographer.FrameCallback mApplyPublishedProgresses = new Choreographer.FrameCallback() {
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			// Clear the flag first: a snapshot published from now on posts again, so none is left unapplied
+			mPublishScheduled.set(false);
+			int[] progresses = mPublishedProgresses.getAndSet(null);
+			if (progresses != null) {
+				cancelAnimation();
+				setUndraggedProgresses(progresses);
+			}
+		}
+	};
+
+	/**
+	 * Get the {@code Choreographer} that every frame callback of this view and its progress streams is posted to.
+	 * It is obtained on first use rather than on construction, since {@code Choreographer.getInstance()} belongs to
+	 * the calling thread. Must be called on the UI thread.
+	 */
+	protected Choreographer getUiChoreographer() {
+		if (mUiChoreographer == null) {
+			mUiChoreographer = Choreographer.getInstance();
+		}
+		return mUiChoreographer;
+	}
 
 	/**
 	 * Initialize the CircularSeekBar with the attributes from the XML style.
@@ -428,7 +790,7 @@ public class CircularSeekBar extends View {
 
 		mCircleProgressGlowPaint = new Paint();
 		mCircleProgressGlowPaint.set(mCircleProgressPaint);
-		mCircleProgressGlowPaint.setMaskFilter(new BlurMaskFilter((5f * DPTOPX_SCALE), BlurMaskFilter.Blur.NORMAL));
+		mCircleProgressGlowPaint.setMaskFilter(new BlurMaskFilter((DEFAULT_GLOW_RADIUS * DPTOPX_SCALE), BlurMaskFilter.Blur.NORMAL));
 
 		mPointerPaint = new Paint();
 		mPointerPaint.setAntiAlias(true);
@@ -455,10 +817,34 @@ public class CircularSeekBar extends View {
 	 * to this value.
 	 */
 	protected void calculateTotalDegrees() {
-		mTotalCircleDegrees = (360f - (mStartAngle - mEndAngle)) % 360f; // Length of the entire circle/arc
-		if (mTotalCircleDegrees <= 0f) {
-			mTotalCircleDegrees = 360f;
+		mModel.setArc(mStartAngle, mEndAngle);
+		mTotalCircleDegrees = mModel.getTotalDegrees();
+	}
+
+	/**
+	 * Copies the arc, size, max, lock and touch settings into {@code mModel}.
+	 */
+	protected void syncModel() {
+		calculateTotalDegrees();
+
+		float minimumTouchTarget = MIN_TOUCH_TARGET_DP * DPTOPX_SCALE; // Convert minimum touch target into px
+		float additionalRadius; // Either uses the minimumTouchTarget size or larger if the ring/pointer is larger
+
+		if (mCircleStrokeWidth < minimumTouchTarget) { // If the width is less than the minimumTouchTarget, use the minimumTouchTarget
+			additionalRadius = minimumTouchTarget / 2;
+		}
+		else {
+			additionalRadius = mCircleStrokeWidth / 2; // Otherwise use the width
 		}
+		float outerRadius = Math.max(mCircleHeight, mCircleWidth) + additionalRadius; // Max outer radius of the circle, including the minimumTouchTarget or wheel width
+		float innerRadius = Math.min(mCircleHeight, mCircleWidth) - additionalRadius; // Min inner radius of the circle, including the minimumTouchTarget or wheel width
+
+		mModel.setMax(mMax);
+		mModel.setRadii(mCircleWidth, mCircleHeight);
+		mModel.setTouchBand(innerRadius, outerRadius);
+		mModel.setPointerRadius(mPointerRadius);
+		mModel.setLockEnabled(lockEnabled);
+		mModel.setMoveOutsideCircle(mMoveOutsideCircle);
 	}
 
 	/**
@@ -481,37 +867,235 @@ public class CircularSeekBar extends View {
 
 	@Override
 	protected void onDraw(Canvas canvas) {
+		long drawStart = mMetricsEnabled ? System.nanoTime() : 0L;
 		super.onDraw(canvas);
 
 		canvas.translate(this.getWidth() / 2, this.getHeight() / 2);
 
-		canvas.drawPath(mCirclePath, mCirclePaint);
+		if (mTrackCaching) {
+			if (mTrackLayerDirty) {
+				recordTrackLayers();
+			}
+			drawTrackLayer(canvas, mTrackPicture);
+		} else {
+			canvas.drawPath(mCirclePath, mCirclePaint);
+		}
 		drawPointerProgress(canvas);
 
-		canvas.drawPath(mCirclePath, mCircleFillPaint);
+		if (Color.alpha(mCircleFillColor) != 0) {
+			if (mTrackCaching) {
+				drawTrackLayer(canvas, mTrackFillPicture);
+			} else {
+				canvas.drawPath(mCirclePath, mCircleFillPaint);
+			}
+		}
 
 		drawPointers(canvas);
 
+		if (mMetricsEnabled) {
+			mMetrics.recordDraw(System.nanoTime() - drawStart);
+			if (mMetricsTouchEventTime >= 0) {
+				mMetrics.recordTouchToDraw((SystemClock.uptimeMillis() - mMetricsTouchEventTime) * 1000000L);
+				mMetricsTouchEventTime = -1;
+			}
+		}
+	}
+
+	/**
+	 * Records the track and the track fill into {@code mTrackPicture} and {@code mTrackFillPicture}.
+	 * They are drawn separately because the fill goes on top of the progress arcs.
+	 */
+	protected void recordTrackLayers() {
+		int width = getWidth();
+		int height = getHeight();
+
+		Canvas trackCanvas = mTrackPicture.beginRecording(width, height);
+		trackCanvas.translate(width / 2, height / 2);
+		trackCanvas.drawPath(mCirclePath, mCirclePaint);
+		mTrackPicture.endRecording();
+
+		Canvas fillCanvas = mTrackFillPicture.beginRecording(width, height);
+		fillCanvas.translate(width / 2, height / 2);
+		fillCanvas.drawPath(mCirclePath, mCircleFillPaint);
+		mTrackFillPicture.endRecording();
+
+		mTrackLayerDirty = false;
+	}
+
+	/**
+	 * Draws a recorded track layer onto a canvas that is already translated to the circle center.
+	 */
+	protected void drawTrackLayer(Canvas canvas, Picture layer) {
+		int offsetX = this.getWidth() / 2;
+		int offsetY = this.getHeight() / 2;
+		canvas.translate(-offsetX, -offsetY);
+		canvas.drawPicture(layer);
+		canvas.translate(offsetX, offsetY);
 	}
 
 
+	/**
+	 * Rebuilds the circle and every pointer. Only needed when the size, angles or max change;
+	 * progress changes should go through {@code markPointerDirty()} and {@code recalculateDirty()}.
+	 */
 	protected void recalculateAll() {
-		calculateTotalDegrees();
-		calculateAllPointerAngle();
-		calculateAllProgressDegrees();
+		if (mMetricsEnabled) {
+			mMetrics.countRecalculateAll();
+		}
+		syncModel();
+		mModel.calculateAll();
 
 		initRects();
 
 		initPaths();
 
-		calculateAllPositions();
+		clearCachedGlowPaints();
+		clearDirtyPointers();
+		mTrackLayerDirty = true;
+		mDirtyRegionFull = true;
+		mSegmentsDirty = true;
+		mGeometryDirty = false;
+		mPaintsDirty = false;
+	}
 
+	/**
+	 * Recalculates only what has changed since the last pass.
+	 * Falls back to {@code recalculateAll()} when the geometry is dirty.
+	 */
+	protected void recalculateDirty() {
+		if (mGeometryDirty) {
+			recalculateAll();
+			return;
+		}
+		if (mPaintsDirty) {
+			for (int i = 0; i < pPointerList.size(); i++) {
+				pPointerList.get(i).initPaints();
+			}
+			mPaintsDirty = false;
+			mDirtyRegionFull = true;
+		}
+		for (int i = 0; i < mDirtyPointers.size(); i++) {
+			recalculatePointer(mDirtyPointers.get(i));
+		}
+		clearDirtyPointers();
 	}
 
-	@Override
-	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-		int height = getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec);
-		int width = getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+	/**
+	 * Recalculates the angle, sweep, path and position of a single pointer.
+	 * @param p The pointer to recalculate.
+	 */
+	protected void recalculatePointer(Pointer p) {
+		float oldX = mPointerStore.x[p.mIndex];
+		float oldY = mPointerStore.y[p.mIndex];
+		if (mMetricsEnabled) {
+			mMetrics.countPointerRecalculation();
+		}
+		mModel.calculatePointer(p.mIndex);
+		p.init();
+		mSegmentsDirty = true;
+		if (mPartialInvalidation) {
+			addPointerDirtyRegion(p, oldX, oldY);
+		}
+	}
+
+	/**
+	 * Adds the area a pointer's move changed to {@code mDirtyRegion}: its old and new thumb,
+	 * and the part of the ring between the old and new angle.
+	 * @param p The pointer that was recalculated.
+	 * @param oldX The X position the thumb was last drawn at.
+	 * @param oldY The Y position the thumb was last drawn at.
+	 */
+	protected void addPointerDirtyRegion(Pointer p, float oldX, float oldY) {
+		if (mCircleWidth <= 0f || mCircleHeight <= 0f) {
+			mDirtyRegionFull = true;
+			return;
+		}
+		// The old angle is recovered from the drawn position, since touch input may already have replaced the stored angle
+		float oldAngle = (float) Math.toDegrees(Math.atan2((oldY - mCircleRectF.centerY()) / mCircleHeight, (oldX - mCircleRectF.centerX()) / mCircleWidth));
+		float oldSweep = (oldAngle - mStartAngle) % 360f;
+		oldSweep = (oldSweep < 0 ? 360f + oldSweep : oldSweep);
+		float newSweep = mPointerStore.sweep[p.mIndex];
+
+		includeDirtyPoint(oldX, oldY);
+		includeDirtyPoint(mPointerStore.x[p.mIndex], mPointerStore.y[p.mIndex]);
+		includeDirtyArc(mStartAngle + Math.min(oldSweep, newSweep), Math.abs(newSweep - oldSweep));
+	}
+
+	/**
+	 * Adds the bounds of an arc of the circle to {@code mDirtyRegion}.
+	 * @param startAngle Start of the arc in degrees.
+	 * @param sweep Clockwise length of the arc in degrees.
+	 */
+	protected void includeDirtyArc(float startAngle, float sweep) {
+		float endAngle = startAngle + sweep;
+		includeDirtyArcPoint(startAngle);
+		includeDirtyArcPoint(endAngle);
+		// The bounds of an arc also reach every axis extreme it passes through
+		for (float angle = (float) Math.ceil(startAngle / 90f) * 90f; angle < endAngle; angle += 90f) {
+			includeDirtyArcPoint(angle);
+		}
+	}
+
+	protected void includeDirtyArcPoint(float angle) {
+		double radians = Math.toRadians(angle);
+		includeDirtyPoint(mCircleRectF.centerX() + (float) (mCircleWidth * Math.cos(radians)), mCircleRectF.centerY() + (float) (mCircleHeight * Math.sin(radians)));
+	}
+
+	protected void includeDirtyPoint(float x, float y) {
+		if (mDirtyRegionEmpty) {
+			mDirtyRegion.set(x, y, x, y);
+			mDirtyRegionEmpty = false;
+		} else {
+			mDirtyRegion.union(x, y);
+		}
+	}
+
+	/**
+	 * Invalidates what changed since the last call. With {@code mPartialInvalidation} this is only
+	 * {@code mDirtyRegion}, padded by the thumb and glow size; otherwise, or after a full rebuild, the whole view.
+	 */
+	// invalidate(int, int, int, int) is deprecated since API 28 because hardware rendering ignores the rect;
+	// it is only called when partial invalidation was enabled for software-rendered views
+	@SuppressWarnings("deprecation")
+	protected void invalidateChanged() {
+		if (!mPartialInvalidation || mDirtyRegionFull) {
+			invalidate();
+		} else if (!mDirtyRegionEmpty) {
+			float padding = Math.max(mPointerRadius + mPointerHaloWidth + mPointerHaloBorderWidth,
+					(mCircleStrokeWidth / 2f) + (DEFAULT_GLOW_RADIUS * DPTOPX_SCALE * 2f)) + 2f;
+			float offsetX = getWidth() / 2;
+			float offsetY = getHeight() / 2;
+			invalidate((int) Math.floor(mDirtyRegion.left + offsetX - padding),
+					(int) Math.floor(mDirtyRegion.top + offsetY - padding),
+					(int) Math.ceil(mDirtyRegion.right + offsetX + padding),
+					(int) Math.ceil(mDirtyRegion.bottom + offsetY + padding));
+		}
+		mDirtyRegionEmpty = true;
+		mDirtyRegionFull = false;
+	}
+
+	/**
+	 * Queues a pointer for the next {@code recalculateDirty()} pass.
+	 * @param p The pointer whose progress or colors changed.
+	 */
+	protected void markPointerDirty(Pointer p) {
+		if (!p.mDirty && p.mIndex >= 0) {
+			p.mDirty = true;
+			mDirtyPointers.add(p);
+		}
+	}
+
+	protected void clearDirtyPointers() {
+		for (int i = 0; i < mDirtyPointers.size(); i++) {
+			mDirtyPointers.get(i).mDirty = false;
+		}
+		mDirtyPointers.clear();
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		int height = getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec);
+		int width = getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
 		if (mMaintainEqualCircle) {
 			int min = Math.min(width, height);
 			setMeasuredDimension(min, min);
@@ -541,6 +1125,7 @@ public class CircularSeekBar extends View {
 			mCircleWidth = min;
 		}
 
+		mGeometryDirty = true;
 		recalculateAll();
 	}
 
@@ -558,6 +1143,7 @@ public class CircularSeekBar extends View {
 	 */
 	public void setLockEnabled(boolean lockEnabled) {
 		this.lockEnabled = lockEnabled;
+		mModel.setLockEnabled(lockEnabled);
 	}
 
 	@Override
@@ -566,191 +1152,372 @@ public class CircularSeekBar extends View {
 			return false;
 		}
 
-		// Convert coordinates to our internal coordinate system
-		float x = event.getX() - getWidth() / 2;
-		float y = event.getY() - getHeight() / 2;
-
-		// Get the distance from the center of the circle in terms of x and y
-		float distanceX = mCircleRectF.centerX() - x;
-		float distanceY = mCircleRectF.centerY() - y;
-
-		// Get the distance from the center of the circle in terms of a radius
-		float touchEventRadius = (float) Math.sqrt((Math.pow(distanceX, 2) + Math.pow(distanceY, 2)));
-
-		float minimumTouchTarget = MIN_TOUCH_TARGET_DP * DPTOPX_SCALE; // Convert minimum touch target into px
-		float additionalRadius; // Either uses the minimumTouchTarget size or larger if the ring/pointer is larger
-
-		if (mCircleStrokeWidth < minimumTouchTarget) { // If the width is less than the minimumTouchTarget, use the minimumTouchTarget
-			additionalRadius = minimumTouchTarget / 2;
-		}
-		else {
-			additionalRadius = mCircleStrokeWidth / 2; // Otherwise use the width
-		}
-		float outerRadius = Math.max(mCircleHeight, mCircleWidth) + additionalRadius; // Max outer radius of the circle, including the minimumTouchTarget or wheel width
-		float innerRadius = Math.min(mCircleHeight, mCircleWidth) - additionalRadius; // Min inner radius of the circle, including the minimumTouchTarget or wheel width
-
-		if (mPointerRadius < (minimumTouchTarget / 2)) { // If the pointer radius is less than the minimumTouchTarget, use the minimumTouchTarget
-			additionalRadius = minimumTouchTarget / 2;
+		int action = event.getActionMasked();
+		int actionIndex = event.getActionIndex();
+		if (action == MotionEvent.ACTION_DOWN) {
+			// Touching the seekbar again stops a running fling, like a jog wheel
+			cancelFling();
 		}
-		else {
-			additionalRadius = mPointerRadius; // Otherwise use the radius
+		if (mFlingEnabled) {
+			if (mVelocityTracker == null) {
+				mVelocityTracker = VelocityTracker.obtain();
+			} else if (action == MotionEvent.ACTION_DOWN) {
+				mVelocityTracker.clear();
+			}
+			mVelocityTracker.addMovement(event);
 		}
+		// The model works relative to the circle center
+		float offsetX = getWidth() / 2;
+		float offsetY = getHeight() / 2;
 
-		float touchAngle;
-		touchAngle = (float) ((java.lang.Math.atan2(y, x) / Math.PI * 180) % 360); // Verified
-		touchAngle = (touchAngle < 0 ? 360 + touchAngle : touchAngle); // Verified
-
-		cwDistanceFromStart = touchAngle - mStartAngle; // Verified
-		cwDistanceFromStart = (cwDistanceFromStart < 0 ? 360f + cwDistanceFromStart : cwDistanceFromStart); // Verified
-		ccwDistanceFromStart = 360f - cwDistanceFromStart; // Verified
-
-		cwDistanceFromEnd = touchAngle - mEndAngle; // Verified
-		cwDistanceFromEnd = (cwDistanceFromEnd < 0 ? 360f + cwDistanceFromEnd : cwDistanceFromEnd); // Verified
-		ccwDistanceFromEnd = 360f - cwDistanceFromEnd; // Verified
-
-		switch (event.getAction()) {
+		switch (action) {
 		case MotionEvent.ACTION_DOWN:
-			// These are only used for ACTION_DOWN for handling if the pointer was the part that was touched
-			float pointerRadiusDegrees = (float) ((mPointerRadius * 180) / (Math.PI * Math.max(mCircleHeight, mCircleWidth)));
-			try {
-				touchedPointer = calculatePointerTouched(touchAngle, touchEventRadius, innerRadius, outerRadius, pointerRadiusDegrees);
-				lastCWDistanceFromStart = cwDistanceFromStart;
-				touchedPointer.mPointerHaloPaint.setAlpha(mPointerAlphaOnTouch);
-				touchedPointer.mPointerHaloPaint.setColor(mPointerHaloColorOnTouch);
-				recalculateAll();
-				invalidate();
-				if (mOnCircularSeekBarChangeListener != null) {
-					mOnCircularSeekBarChangeListener.onStartTrackingTouch(this, pPointerList.get(pPointerList.indexOf(touchedPointer)));
-				}
-				mUserIsMovingPointer = true;
-				lockAtEnd = false;
-				lockAtStart = false;
-			} catch (NullPointerException e){
+		case MotionEvent.ACTION_POINTER_DOWN:
+			if (action == MotionEvent.ACTION_POINTER_DOWN && !mMultiTouchEnabled) {
+				break;
+			}
+			int hitIndex = mModel.touchDown(event.getPointerId(actionIndex), event.getX(actionIndex) - offsetX, event.getY(actionIndex) - offsetY);
+			if (hitIndex < 0) {
+				mUserIsMovingPointer = mModel.getTouchCount() > 0;
+				break;
+			}
+			cancelAnimation();
+			touchedPointer = pPointerList.get(hitIndex);
+			if (touchedPointer == mFlingPointer) {
+				cancelFling();
 			}
+			// Cached paints are shared, so swap in the on-touch halo rather than mutating it
+			touchedPointer.mPointerHaloPaint = PaintCache.obtain(mPointerHaloColorOnTouch, Color.alpha(mPointerHaloColorOnTouch), mPointerRadius + mPointerHaloWidth, Paint.Style.FILL, 0f);
+			recalculateDirty();
+			invalidate();
+			if (mOnCircularSeekBarChangeListener != null) {
+				mOnCircularSeekBarChangeListener.onStartTrackingTouch(this, touchedPointer);
+			}
+			mUserIsMovingPointer = true;
 
 			break;
 		case MotionEvent.ACTION_MOVE:
 			if (mUserIsMovingPointer) {
-				if (lastCWDistanceFromStart < cwDistanceFromStart) {
-					if ((cwDistanceFromStart - lastCWDistanceFromStart) > 180f && !mIsMovingCW) {
-						lockAtStart = true;
-						lockAtEnd = false;
-					} else {
-						mIsMovingCW = true;
+				boolean moved = false;
+				beginBatchUpdate();
+				// Every finger is applied before a single recalculation
+				for (int slot = 0; slot < mModel.getTouchCount(); slot++) {
+					mTouchMoved[slot] = false;
+					int pointerIndex = event.findPointerIndex(mModel.getTouchId(slot));
+					if (pointerIndex < 0) {
+						continue;
 					}
-				} else {
-					if ((lastCWDistanceFromStart - cwDistanceFromStart) > 180f && mIsMovingCW) {
-						lockAtEnd = true;
-						lockAtStart = false;
-					} else {
-						mIsMovingCW = false;
+					boolean slotMoved = false;
+					if (mProcessHistoricalTouches) {
+						// Walk the samples batched into this event so fast drags do not skip the lock checks
+						for (int h = 0; h < event.getHistorySize(); h++) {
+							slotMoved |= mModel.touchMove(slot, event.getHistoricalX(pointerIndex, h) - offsetX, event.getHistoricalY(pointerIndex, h) - offsetY);
+						}
 					}
+					slotMoved |= mModel.touchMove(slot, event.getX(pointerIndex) - offsetX, event.getY(pointerIndex) - offsetY);
+					if (slotMoved) {
+						touchedPointer = pPointerList.get(mModel.getTouchPointer(slot));
+						markPointerDirty(touchedPointer);
+					}
+					mTouchMoved[slot] = slotMoved;
+					moved |= slotMoved;
 				}
-
-				if (lockAtStart && mIsMovingCW) {
-					lockAtStart = false;
-				}
-				if (lockAtEnd && !mIsMovingCW) {
-					lockAtEnd = false;
-				}
-				if (lockAtStart && !mIsMovingCW && (ccwDistanceFromStart > 90)) {
-					lockAtStart = false;
-				}
-				if (lockAtEnd && mIsMovingCW && (cwDistanceFromEnd > 90)) {
-					lockAtEnd = false;
-				}
-				// Fix for passing the end of a semi-circle quickly
-				if (!lockAtEnd && cwDistanceFromStart > mTotalCircleDegrees && mIsMovingCW && lastCWDistanceFromStart < mTotalCircleDegrees) {
-					lockAtEnd = true;
+				applyModelChanges();
+				endBatchUpdate();
+				if (moved && mMetricsEnabled && mMetricsTouchEventTime < 0) {
+					// Latency is measured from the oldest move that has not been drawn yet
+					mMetricsTouchEventTime = event.getEventTime();
 				}
-
-				if (lockAtStart && lockEnabled) {
-					// TODO: Add a check if mProgress is already 0, in which case don't call the listener
-					mProgress = 0;
-					recalculateAll();
-					invalidate();
-					if (touchedPointer.changeListener != null) {
-                        touchedPointer.changeListener.onProgressChanged(this, touchedPointer.mProgress, getRelativeProgress(touchedPointer), pPointerList.get(pPointerList.indexOf(touchedPointer)), true);
-					}
-
-				} else if (lockAtEnd && lockEnabled) {
-					mProgress = mMax;
-					recalculateAll();
-					invalidate();
-					if (mOnCircularSeekBarChangeListener != null) {
-						touchedPointer.changeListener.onProgressChanged(this, touchedPointer.mProgress, getRelativeProgress(touchedPointer), pPointerList.get(pPointerList.indexOf(touchedPointer)), true);
+				if (moved) {
+					// endBatchUpdate() has already recalculated and invalidated the moved pointers, unless deferring
+					boolean deferring = isDeferringDispatch();
+					for (int slot = 0; slot < mModel.getTouchCount(); slot++) {
+						if (!mTouchMoved[slot]) {
+							continue;
+						}
+						Pointer p = pPointerList.get(mModel.getTouchPointer(slot));
+						if (deferring) {
+							queueProgressChanged(p, true);
+						} else {
+							dispatchUserProgressChanged(p);
+						}
 					}
-				} else if ((mMoveOutsideCircle) || (touchEventRadius <= outerRadius)) {
-					if (!(cwDistanceFromStart > mTotalCircleDegrees)) {
-						if (mUserIsMovingPointer) {
-                            try {
-								int priorProgress = touchedPointer.getProgress();
-                                touchedPointer.setProgressBasedOnAngle(touchAngle);
-								setGangProgress(touchedPointer, priorProgress);
-                            } catch (Exception e) {
-                            }
-                        } else {
-                        }
-
-					}
-					recalculateAll();
-					invalidate();
-					if (touchedPointer.changeListener != null) {
-                        touchedPointer.changeListener.onProgressChanged(this, touchedPointer.mProgress, getRelativeProgress(touchedPointer), pPointerList.get(pPointerList.indexOf(touchedPointer)), true);
+					if (deferring) {
+						scheduleFrame();
 					}
-				} else {
-					break;
 				}
-
-				lastCWDistanceFromStart = cwDistanceFromStart;
 			} else {
 				return false;
 			}
 			break;
-		case MotionEvent.ACTION_UP:
-			try {
-			}catch (NullPointerException e){
-
+		case MotionEvent.ACTION_POINTER_UP:
+			int releasedSlot = mModel.findTouchSlot(event.getPointerId(actionIndex));
+			if (releasedSlot >= 0) {
+				flushFrame();
+				flingTouch(releasedSlot, event.getX(actionIndex) - offsetX, event.getY(actionIndex) - offsetY);
+				releaseTouch(releasedSlot, true);
 			}
-
+			break;
+		case MotionEvent.ACTION_UP:
 			if (mUserIsMovingPointer) {
-				mUserIsMovingPointer = false;
-				invalidate();
-				if (touchedPointer.changeListener != null) {
-                    touchedPointer.changeListener.onStopTrackingTouch(this, pPointerList.get(pPointerList.indexOf(touchedPointer)));
+				flushFrame();
+				int upSlot = mModel.findTouchSlot(event.getPointerId(actionIndex));
+				if (upSlot >= 0) {
+					flingTouch(upSlot, event.getX(actionIndex) - offsetX, event.getY(actionIndex) - offsetY);
+				}
+				while (mModel.getTouchCount() > 0) {
+					releaseTouch(mModel.getTouchCount() - 1, true);
 				}
 			} else {
 				return false;
 			}
 			break;
 		case MotionEvent.ACTION_CANCEL: // Used when the parent view intercepts touches for things like scrolling
-			try {
-			}catch (NullPointerException e){
-
+			flushFrame();
+			while (mModel.getTouchCount() > 0) {
+				releaseTouch(mModel.getTouchCount() - 1, false);
 			}
 			mUserIsMovingPointer = false;
 			invalidate();
 			break;
 		}
 
-		if (event.getAction() == MotionEvent.ACTION_MOVE && getParent() != null) {
+		if (action == MotionEvent.ACTION_MOVE && getParent() != null) {
 			getParent().requestDisallowInterceptTouchEvent(true);
 		}
 
 		return true;
 	}
 
-	protected void setGangProgress(Pointer touched, int priorProgress){
-		int currentProgress = touched.getProgress();
-		int progressDifference = currentProgress - priorProgress;
-		ListIterator<Pointer> pPointerIterator = pPointerList.listIterator();
-		while (pPointerIterator.hasNext()) {
-			Pointer p = pPointerIterator.next();
-			int accessedProgress = p.getProgress();
-			if (accessedProgress > currentProgress){
-				p.setProgress(p.getProgress()+progressDifference);
+	/**
+	 * Stops tracking a finger and restores its pointer's halo.
+	 * @param slot The touch slot in {@code mModel} to release.
+	 * @param notify True to call {@code onStopTrackingTouch} on the pointer's listener.
+	 */
+	protected void releaseTouch(int slot, boolean notify) {
+		Pointer p = pPointerList.get(mModel.getTouchPointer(slot));
+		mModel.removeTouchSlot(slot);
+		mUserIsMovingPointer = mModel.getTouchCount() > 0;
+		touchedPointer = p;
+
+		p.mPaintDirty = true;
+		markPointerDirty(p);
+		recalculateDirty();
+		invalidate();
+		if (notify && p.changeListener != null) {
+			p.changeListener.onStopTrackingTouch(this, p);
+		}
+	}
+
+	/**
+	 * Starts a fling of the pointer dragged from a touch slot, if fling is enabled and the touch
+	 * was released fast enough. The angular velocity is taken from the tangential part of the touch velocity.
+	 * @param slot The touch slot in {@code mModel} being released.
+	 * @param x X coordinate of the release, relative to the circle center.
+	 * @param y Y coordinate of the release, relative to the circle center.
+	 */
+	protected void flingTouch(int slot, float x, float y) {
+		if (!mFlingEnabled || mVelocityTracker == null) {
+			return;
+		}
+		float radiusSquared = (x * x) + (y * y);
+		if (radiusSquared <= 0f) {
+			return;
+		}
+		int touchId = mModel.getTouchId(slot);
+		mVelocityTracker.computeCurrentVelocity(1000);
+		float velocityX = mVelocityTracker.getXVelocity(touchId);
+		float velocityY = mVelocityTracker.getYVelocity(touchId);
+		// d(atan2(y, x))/dt; positive is clockwise on screen, like the angles
+		float velocity = (float) Math.toDegrees(((x * velocityY) - (y * velocityX)) / radiusSquared);
+		if (Math.abs(velocity) < mMinFlingVelocity) {
+			return;
+		}
+		cancelFling();
+		Pointer p = pPointerList.get(mModel.getTouchPointer(slot));
+		mFlingPointer = p;
+		mFlingVelocity = velocity;
+		mFlingSweep = mPointerStore.sweep[p.mIndex];
+		mFlingLastFrameNanos = -1;
+		getUiChoreographer().postFrameCallback(mFlingFrameCallback);
+	}
+
+	/**
+	 * Stops a running fling, leaving the pointer where it is.
+	 */
+	public void cancelFling() {
+		if (mFlingPointer != null) {
+			mFlingPointer = null;
+			getUiChoreographer().removeFrameCallback(mFlingFrameCallback);
+		}
+	}
+
+	/**
+	 * Get whether a released pointer is still flinging.
+	 * @return Boolean value of true if a fling is running.
+	 */
+	public boolean isFlinging() {
+		return mFlingPointer != null;
+	}
+
+	/**
+	 * Picks up the pointers {@code mModel} moved along with a dragged pointer, as if their progress had been set.
+	 */
+	protected void applyModelChanges() {
+		for (int i = 0; i < mModel.getChangedCount(); i++) {
+			pPointerList.get(mModel.getChangedPointer(i)).progressChanged();
+		}
+		mModel.clearChanged();
+	}
+
+	/**
+	 * Notifies the pointer's own listener that the user changed its progress.
+	 * @param p The pointer that was moved.
+	 */
+	protected void dispatchUserProgressChanged(Pointer p) {
+		feedProgressStreams(p, true);
+		if (p.changeListener != null) {
+			long start = mMetricsEnabled ? System.nanoTime() : 0L;
+			p.changeListener.onProgressChanged(this, mPointerStore.progress[p.mIndex], getRelativeProgress(p), p, true);
+			if (mMetricsEnabled) {
+				mMetrics.recordDispatch(System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * Notifies the seekbar listener that a pointer's progress changed programmatically.
+	 * @param p The pointer that changed.
+	 */
+	protected void dispatchProgressChanged(Pointer p) {
+		feedProgressStreams(p, false);
+		if (mOnCircularSeekBarChangeListener != null) {
+			long start = mMetricsEnabled ? System.nanoTime() : 0L;
+			mOnCircularSeekBarChangeListener.onProgressChanged(this, mPointerStore.progress[p.mIndex], getRelativeProgress(p), p, false);
+			if (mMetricsEnabled) {
+				mMetrics.recordDispatch(System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * Records a pointer's progress in every open progress stream.
+	 * @param p The pointer that changed.
+	 * @param fromUser True if the user made the change.
+	 */
+	protected void feedProgressStreams(Pointer p, boolean fromUser) {
+		for (int i = 0; i < mProgressStreams.size(); i++) {
+			mProgressStreams.get(i).onProgressChanged(p.mIndex, mPointerStore.exactProgress[p.mIndex], fromUser);
+		}
+	}
+
+	/**
+	 * Whether listener calls and recalculation are currently deferred to the next frame.
+	 * @return True while the user is dragging and the dispatch policy is not {@code DISPATCH_EVERY_SAMPLE}.
+	 */
+	protected boolean isDeferringDispatch() {
+		return mDispatchPolicy != DISPATCH_EVERY_SAMPLE && mUserIsMovingPointer;
+	}
+
+	/**
+	 * Records that a pointer's listener must be notified when pending changes are flushed.
+	 * A pointer is only queued once, no matter how many samples moved it.
+	 * @param p The pointer that changed.
+	 * @param fromUser True to notify the pointer's own listener, false to notify the seekbar listener.
+	 */
+	protected void queueProgressChanged(Pointer p, boolean fromUser) {
+		if (!p.mDispatchPending && !p.mUserDispatchPending) {
+			mPendingDispatchPointers.add(p);
+		}
+		if (fromUser) {
+			p.mUserDispatchPending = true;
+		} else {
+			p.mDispatchPending = true;
+		}
+	}
+
+	/**
+	 * Sends all queued listener calls.
+	 */
+	protected void flushPendingProgressChanges() {
+		for (int i = 0; i < mPendingDispatchPointers.size(); i++) {
+			Pointer p = mPendingDispatchPointers.get(i);
+			if (p.mDispatchPending) {
+				dispatchProgressChanged(p);
+			}
+			if (p.mUserDispatchPending) {
+				dispatchUserProgressChanged(p);
+			}
+			p.mDispatchPending = false;
+			p.mUserDispatchPending = false;
+		}
+		mPendingDispatchPointers.clear();
+	}
+
+	/**
+	 * Posts {@code mFrameCallback} if it is not posted already.
+	 */
+	protected void scheduleFrame() {
+		if (!mFrameCallbackPosted) {
+			mFrameCallbackPosted = true;
+			getUiChoreographer().postFrameCallback(mFrameCallback);
+		}
+	}
+
+	/**
+	 * Runs any pending frame work right away: recalculates, invalidates and sends all queued listener calls.
+	 */
+	protected void flushFrame() {
+		if (mFrameCallbackPosted) {
+			getUiChoreographer().removeFrameCallback(mFrameCallback);
+			mFrameCallbackPosted = false;
+		}
+		recalculateDirty();
+		invalidateChanged();
+		flushPendingProgressChanges();
+	}
+
+	/**
+	 * Starts a batch of progress changes. Until the matching {@code endBatchUpdate()},
+	 * pointer progress changes are only recorded: no recalculation, invalidate or listener call happens.
+	 * Batches may be nested.
+	 */
+	protected void beginBatchUpdate() {
+		mBatchDepth++;
+	}
+
+	/**
+	 * Ends a batch of progress changes. When the outermost batch ends, the changed pointers are
+	 * recalculated once, the view is invalidated once, and the listener is notified for each changed pointer.
+	 */
+	protected void endBatchUpdate() {
+		if (mBatchDepth == 0 || --mBatchDepth > 0) {
+			return;
+		}
+		if (mBatchChangedPointers.isEmpty() && mDirtyPointers.isEmpty() && !mGeometryDirty) {
+			return;
+		}
+		if (isDeferringDispatch()) {
+			for (int i = 0; i < mBatchChangedPointers.size(); i++) {
+				Pointer p = mBatchChangedPointers.get(i);
+				p.mBatchChanged = false;
+				queueProgressChanged(p, false);
+			}
+			mBatchChangedPointers.clear();
+			scheduleFrame();
+			return;
+		}
+		recalculateDirty();
+		invalidateChanged();
+		if (mOnCircularSeekBarChangeListener != null || !mProgressStreams.isEmpty()) {
+			for (int i = 0; i < mBatchChangedPointers.size(); i++) {
+				dispatchProgressChanged(mBatchChangedPointers.get(i));
 			}
 		}
+		for (int i = 0; i < mBatchChangedPointers.size(); i++) {
+			mBatchChangedPointers.get(i).mBatchChanged = false;
+		}
+		mBatchChangedPointers.clear();
 	}
 
 	protected void init(AttributeSet attrs, int defStyle) {
@@ -778,6 +1545,32 @@ public class CircularSeekBar extends View {
 		init(attrs, defStyle);
 	}
 
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		for (int i = 0; i < mProgressStreams.size(); i++) {
+			mProgressStreams.get(i).resume();
+		}
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		cancelAnimation();
+		cancelFling();
+		for (int i = 0; i < mProgressStreams.size(); i++) {
+			mProgressStreams.get(i).pause();
+		}
+		if (mVelocityTracker != null) {
+			mVelocityTracker.recycle();
+			mVelocityTracker = null;
+		}
+		if (mFrameCallbackPosted) {
+			getUiChoreographer().removeFrameCallback(mFrameCallback);
+			mFrameCallbackPosted = false;
+		}
+	}
+
 	@Override
 	protected Parcelable onSaveInstanceState() {
 		Parcelable superState = super.onSaveInstanceState();
@@ -795,6 +1588,8 @@ public class CircularSeekBar extends View {
 		state.putInt("mPointerAlphaOnTouch", mPointerAlphaOnTouch);
 		state.putBoolean("lockEnabled", lockEnabled);
 		state.putBoolean("isTouchEnabled", isTouchEnabled);
+		state.putBoolean("highResolution", mModel.isHighResolution());
+		state.putParcelable("POINTERS", new PointerState(mPointerStore, pPointerList));
 
 		return state;
 	}
@@ -802,6 +1597,8 @@ public class CircularSeekBar extends View {
 	@Override
 	protected void onRestoreInstanceState(Parcelable state) {
 		Bundle savedState = (Bundle) state;
+		// PointerState is an app class, so the framework's class loader cannot unparcel it
+		savedState.setClassLoader(getClass().getClassLoader());
 
 		Parcelable superState = savedState.getParcelable("PARENT");
 		super.onRestoreInstanceState(superState);
@@ -817,16 +1614,94 @@ public class CircularSeekBar extends View {
 		mPointerAlphaOnTouch = savedState.getInt("mPointerAlphaOnTouch");
 		lockEnabled = savedState.getBoolean("lockEnabled");
 		isTouchEnabled = savedState.getBoolean("isTouchEnabled");
+		mModel.setHighResolution(savedState.getBoolean("highResolution"));
 
 		initPaints();
 
+		PointerState pointerState = savedState.getParcelable("POINTERS");
+		if (pointerState != null) {
+			restorePointers(pointerState);
+		}
+
+		mGeometryDirty = true;
+		mPaintsDirty = true;
 		recalculateAll();
 	}
 
+	/**
+	 * Restores the progress and colors of every saved pointer, without recalculating anything;
+	 * the caller does a single {@code recalculateAll()} afterwards.
+	 * Pointers that already exist (for example re-added by the app, with their listeners) are updated in order,
+	 * missing ones are added, and any extra existing pointers are left as they are.
+	 * @param state The saved pointers.
+	 */
+	protected void restorePointers(PointerState state) {
+		cancelAnimation();
+		cancelFling();
+		int count = state.size();
+		mModel.ensureCapacity(count);
+		pPointerList.ensureCapacity(count);
+		for (int i = 0; i < count; i++) {
+			Pointer p;
+			if (i < pPointerList.size()) {
+				p = pPointerList.get(i);
+			} else {
+				p = new Pointer(this);
+				pPointerList.add(p);
+			}
+			mModel.setExactProgress(i, state.progress[i]);
+			p.CUSTOM_COLOR = state.hasCustomColor(i);
+			mPointerStore.pointerColor[i] = state.colors[i * 2];
+			mPointerStore.progressColor[i] = state.colors[(i * 2) + 1];
+			p.mPaintDirty = true;
+		}
+		mModel.invalidateSort();
+	}
+
 	public void setOnSeekBarChangeListener(OnCircularSeekBarChangeListener l) {
 		mOnCircularSeekBarChangeListener = l;
 	}
 
+	/**
+	 * Opens a stream of progress changes. Unlike {@code OnCircularSeekBarChangeListener}, which is called for
+	 * every pointer on every touch sample, the stream delivers the latest progress of the changed pointers
+	 * together, at most once per frame. Use the stream's setters to throttle it, wait for the pointers to settle
+	 * or drop unchanged pointers. Nothing is delivered while the view is detached from its window.
+	 * @param l Listener receiving the batches.
+	 * @return The new stream.
+	 */
+	public ProgressStream openProgressStream(OnProgressBatchListener l) {
+		ProgressStream stream = new ProgressStream(this, l);
+		if (!isAttachedToWindow()) {
+			stream.pause();
+		}
+		mProgressStreams.add(stream);
+		return stream;
+	}
+
+	/**
+	 * Closes a stream opened with {@code openProgressStream()}. Its undelivered changes are dropped.
+	 * @param stream The stream to close.
+	 */
+	public void closeProgressStream(ProgressStream stream) {
+		if (mProgressStreams.remove(stream)) {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Listener for a ProgressStream.
+	 */
+	public interface OnProgressBatchListener {
+
+		/**
+		 * Called on the UI thread with the latest progress of the pointers that changed.
+		 * @param circularSeekBar The seekbar.
+		 * @param batch The changes. Reused by the stream, so only valid during this call.
+		 */
+		public abstract void onProgressBatch(CircularSeekBar circularSeekBar, ProgressBatch batch);
+	}
+
 	/**
 	* Listener for the CircularSeekBar. Implements the same methods as the normal OnSeekBarChangeListener.
 	*/
@@ -846,6 +1721,7 @@ public class CircularSeekBar extends View {
 	public void setCircleColor(int color) {
 		mCircleColor = color;
 		mCirclePaint.setColor(mCircleColor);
+		mTrackLayerDirty = true;
 		invalidate();
 	}
 
@@ -919,6 +1795,9 @@ public class CircularSeekBar extends View {
 		if (alpha >=0 && alpha <= 255) {
 			mPointerAlpha = alpha;
 			mPointerHaloPaint.setAlpha(mPointerAlpha);
+			// Custom colored pointers build their halo paint from mPointerAlpha
+			mPaintsDirty = true;
+			recalculateDirty();
 			invalidate();
 		}
 	}
@@ -956,6 +1835,7 @@ public class CircularSeekBar extends View {
 	public void setCircleFillColor(int color) {
 		mCircleFillColor = color;
 		mCircleFillPaint.setColor(mCircleFillColor);
+		mTrackLayerDirty = true;
 		invalidate();
 	}
 
@@ -969,20 +1849,18 @@ public class CircularSeekBar extends View {
 
 	/**
 	 * Set the max of the CircularSeekBar.
-	 * If the new max is less than the current progress, then the progress will be set to zero.
-	 * If the progress is changed as a result, then any listener will receive a onProgressChanged event.
+	 * If the new max is less than the legacy {@code mProgress}, then it will be set to zero.
+	 * Pointers keep their progress; their angles are recalculated against the new max.
 	 * @param max The new max for the CircularSeekBar.
 	 */
 	public void setMax(int max) {
 		if (!(max <= 0)) { // Check to make sure it's greater than zero
 			if (max <= mProgress) {
 				mProgress = 0; // If the new max is less than current progress, set progress to zero
-				if (mOnCircularSeekBarChangeListener != null) {
-					mOnCircularSeekBarChangeListener.onProgressChanged(this, mProgress, getRelativeProgress(touchedPointer), false);
-				}
 			}
 			mMax = max;
 
+			mGeometryDirty = true;
 			recalculateAll();
 			invalidate();
 		}
@@ -997,177 +1875,808 @@ public class CircularSeekBar extends View {
 	}
 
 	/**
-	 * Set whether user touch input is accepted or ignored.
-	 * param boolean value. True if user touch input is to be accepted, false if user touch input is to be ignored.
+	 * Set when changes made while dragging are recalculated and sent to listeners.
+	 * @param dispatchPolicy One of {@code DISPATCH_EVERY_SAMPLE}, {@code DISPATCH_PER_FRAME} or {@code DISPATCH_ON_SETTLE}.
 	 */
-	public void setIsTouchEnabled(boolean isTouchEnabled) {
-		this.isTouchEnabled = isTouchEnabled;
+	public void setDispatchPolicy(int dispatchPolicy) {
+		if (dispatchPolicy >= DISPATCH_EVERY_SAMPLE && dispatchPolicy <= DISPATCH_ON_SETTLE) {
+			mDispatchPolicy = dispatchPolicy;
+		}
 	}
 
 	/**
-	 * Get whether user touch input is accepted.
-	 * @return Boolean value of true if user touch input is accepted, false if user touch input is ignored.
+	 * Get when changes made while dragging are recalculated and sent to listeners.
+	 * @return One of {@code DISPATCH_EVERY_SAMPLE}, {@code DISPATCH_PER_FRAME} or {@code DISPATCH_ON_SETTLE}.
 	 */
-	public boolean getIsTouchEnabled() {
-		return isTouchEnabled;
+	public int getDispatchPolicy() {
+		return mDispatchPolicy;
 	}
 
+	/**
+	 * Set whether a released pointer keeps moving along the arc with the speed it was released at,
+	 * slowing down until it stops. With the lock enabled the fling stops at the start and end of the arc;
+	 * otherwise it wraps around. Only the flung pointer moves, and its own listener is notified as for a drag.
+	 * @param flingEnabled True to fling released pointers.
+	 */
+	public void setFlingEnabled(boolean flingEnabled) {
+		mFlingEnabled = flingEnabled;
+		if (!flingEnabled) {
+			cancelFling();
+		}
+	}
 
 	/**
-	 * Instantiatable Pointers addition contributed by Joseph Novak.
+	 * Get whether released pointers fling.
+	 * @return Boolean value of true if fling is enabled.
 	 */
-	protected ArrayList<Pointer> pPointerList = new ArrayList<>();
-    protected Pointer touchedPointer;
+	public boolean isFlingEnabled() {
+		return mFlingEnabled;
+	}
 
-	public Pointer addPointer(int pProgress, OnCircularSeekBarChangeListener l){
-		Pointer pointer = new Pointer(pProgress, this, l);
-		pPointerList.add(pointer);
-		return pointer;
+	/**
+	 * Set how quickly a fling slows down.
+	 * @param flingFriction Decay rate of the fling velocity per second. Must be greater than zero.
+	 */
+	public void setFlingFriction(float flingFriction) {
+		if (flingFriction > 0f) {
+			mFlingFriction = flingFriction;
+		}
 	}
 
-	public Pointer addPointer(int pProgress){
-		Pointer pointer = new Pointer(pProgress, this);
-		pPointerList.add(pointer);
-		return pointer;
+	/**
+	 * Get how quickly a fling slows down.
+	 * @return Decay rate of the fling velocity per second.
+	 */
+	public float getFlingFriction() {
+		return mFlingFriction;
 	}
 
-	public Pointer addPointer(){
-		Pointer pointer = new Pointer(this);
-		pPointerList.add(pointer);
-		distributeProgress();
-        return pointer;
-	};
+	/**
+	 * Set the slowest release that starts a fling.
+	 * @param minFlingVelocity Angular velocity in degrees per second.
+	 */
+	public void setMinFlingVelocity(float minFlingVelocity) {
+		mMinFlingVelocity = minFlingVelocity;
+	}
 
-    public Pointer addPointer(OnCircularSeekBarChangeListener l){
-        Pointer pointer = new Pointer(this, l);
-        pPointerList.add(pointer);
-        distributeProgress();
-        return pointer;
-    };
+	/**
+	 * Get the slowest release that starts a fling.
+	 * @return Angular velocity in degrees per second.
+	 */
+	public float getMinFlingVelocity() {
+		return mMinFlingVelocity;
+	}
 
-    //distributeProgress will position the pointers evenly around the maximum value of the circular seekbar.
-    protected void distributeProgress(){
-        ListIterator<Pointer> pPointerIterator = pPointerList.listIterator();
-        while (pPointerIterator.hasNext()){
-            Pointer p = pPointerIterator.next();
-            int distributiveProgess = this.getMax() / (pPointerList.size()) * pPointerList.indexOf(p);
-            p.setProgress(distributiveProgess);
-        }
+	/**
+	 * Set whether pointers keep fractional progress. Dragging then stores the exact progress of the
+	 * touch angle, and thumbs are drawn there instead of snapping to whole steps, which removes jitter
+	 * on large dials. {@code Pointer.getProgress()} still returns whole steps, cached when the angle changes.
+	 * @param highResolution True to keep fractional progress.
+	 */
+	public void setHighResolutionProgress(boolean highResolution) {
+		if (mModel.isHighResolution() != highResolution) {
+			mModel.setHighResolution(highResolution);
+			mGeometryDirty = true;
+			recalculateAll();
+			invalidate();
+		}
+	}
+
+	/**
+	 * Get whether pointers keep fractional progress.
+	 * @return Boolean value of true if high resolution progress is enabled.
+	 */
+	public boolean isHighResolutionProgress() {
+		return mModel.isHighResolution();
+	}
+
+	/**
+	 * Set whether runtime metrics are recorded. Recording takes no lock and does not allocate,
+	 * so it can stay enabled in release builds.
+	 * @param metricsEnabled True to record metrics.
+	 */
+	public void setMetricsEnabled(boolean metricsEnabled) {
+		mMetricsEnabled = metricsEnabled;
+		mMetricsTouchEventTime = -1;
+	}
+
+	/**
+	 * Get whether runtime metrics are recorded.
+	 * @return Boolean value of true if metrics are recorded.
+	 */
+	public boolean isMetricsEnabled() {
+		return mMetricsEnabled;
+	}
+
+	/**
+	 * Copies the metrics recorded so far into {@code out}. Does not allocate.
+	 * Must be called on the UI thread; the copy can then be handed to any thread.
+	 * @param out The snapshot to fill.
+	 * @return {@code out}, for chaining.
+	 */
+	public SeekBarMetrics getMetrics(SeekBarMetrics out) {
+		out.set(mMetrics);
+		return out;
+	}
+
+	/**
+	 * Sets every recorded metric back to zero.
+	 */
+	public void resetMetrics() {
+		mMetrics.reset();
+		mMetricsTouchEventTime = -1;
+	}
+
+	/**
+	 * Set whether the track and track fill are recorded once and replayed on each frame,
+	 * instead of being drawn from the path every time. The recording is redone when the size,
+	 * angles or track colors change. Hardware-accelerated canvases only replay pictures from API 23.
+	 * @param trackCaching True to cache the track layers.
+	 */
+	public void setTrackCaching(boolean trackCaching) {
+		if (mTrackCaching != trackCaching) {
+			mTrackCaching = trackCaching;
+			mTrackLayerDirty = true;
+			invalidate();
+		}
+	}
+
+	/**
+	 * Get whether the track and track fill are recorded once and replayed on each frame.
+	 * @return Boolean value of true if the track layers are cached.
+	 */
+	public boolean isTrackCaching() {
+		return mTrackCaching;
+	}
+
+	/**
+	 * Set whether progress changes only invalidate the area around the moved thumbs and arcs.
+	 * Size, angle and color changes still invalidate the whole view. This only helps software rendering
+	 * (for example a view with {@code LAYER_TYPE_SOFTWARE}): since API 21 hardware-accelerated views ignore
+	 * the invalidated area and redraw the whole view, so there the option only adds the bookkeeping cost.
+	 * @param partialInvalidation True to invalidate only the changed area.
+	 */
+	public void setPartialInvalidation(boolean partialInvalidation) {
+		mPartialInvalidation = partialInvalidation;
+		mDirtyRegionEmpty = true;
+		mDirtyRegionFull = false;
+	}
+
+	/**
+	 * Get whether progress changes only invalidate the area around the moved thumbs and arcs.
+	 * @return Boolean value of true if only the changed area is invalidated.
+	 */
+	public boolean isPartialInvalidation() {
+		return mPartialInvalidation;
+	}
+
+	/**
+	 * Set whether several fingers can drag different pointers at the same time.
+	 * @param multiTouchEnabled False to ignore every finger after the first.
+	 */
+	public void setMultiTouchEnabled(boolean multiTouchEnabled) {
+		mMultiTouchEnabled = multiTouchEnabled;
+	}
+
+	/**
+	 * Get whether several fingers can drag different pointers at the same time.
+	 * @return Boolean value of true if multi-touch dragging is enabled.
+	 */
+	public boolean isMultiTouchEnabled() {
+		return mMultiTouchEnabled;
+	}
+
+	/**
+	 * Set whether the historical samples batched into each move event are processed.
+	 * This gives accurate tracking of fast drags, with one recalculation and one listener call per event.
+	 * @param processHistoricalTouches True to process every batched sample.
+	 */
+	public void setProcessHistoricalTouches(boolean processHistoricalTouches) {
+		mProcessHistoricalTouches = processHistoricalTouches;
+	}
+
+	/**
+	 * Get whether the historical samples batched into each move event are processed.
+	 * @return Boolean value of true if every batched sample is processed.
+	 */
+	public boolean isProcessHistoricalTouches() {
+		return mProcessHistoricalTouches;
+	}
+
+	/**
+	 * Set how the glow behind the progress arcs is rendered.
+	 * @param glowMode One of {@code GLOW_MODE_NONE}, {@code GLOW_MODE_MASK_FILTER} or {@code GLOW_MODE_CACHED}.
+	 */
+	public void setGlowMode(int glowMode) {
+		if (glowMode >= GLOW_MODE_NONE && glowMode <= GLOW_MODE_CACHED && mGlowMode != glowMode) {
+			mGlowMode = glowMode;
+			clearCachedGlowPaints();
+			invalidate();
+		}
+	}
+
+	/**
+	 * Get how the glow behind the progress arcs is rendered.
+	 * @return One of {@code GLOW_MODE_NONE}, {@code GLOW_MODE_MASK_FILTER} or {@code GLOW_MODE_CACHED}.
+	 */
+	public int getGlowMode() {
+		return mGlowMode;
+	}
+
+	/**
+	 * Set whether the glow is drawn while the user is dragging a pointer.
+	 * @param glowWhileDragging False to skip the glow during drags.
+	 */
+	public void setGlowWhileDragging(boolean glowWhileDragging) {
+		mGlowWhileDragging = glowWhileDragging;
+	}
+
+	/**
+	 * Get whether the glow is drawn while the user is dragging a pointer.
+	 * @return Boolean value of true if the glow is drawn during drags.
+	 */
+	public boolean isGlowWhileDragging() {
+		return mGlowWhileDragging;
+	}
+
+	/**
+	 * Set whether the ring is drawn as non-overlapping segments, one per pointer.
+	 * Each part of the ring is then painted once instead of once per pointer that covers it.
+	 * @param segmentedProgress True to draw non-overlapping segments.
+	 */
+	public void setSegmentedProgress(boolean segmentedProgress) {
+		if (mSegmentedProgress != segmentedProgress) {
+			mSegmentedProgress = segmentedProgress;
+			mSegmentsDirty = true;
+			invalidate();
+		}
+	}
+
+	/**
+	 * Get whether the ring is drawn as non-overlapping segments.
+	 * @return Boolean value of true if each part of the ring is drawn once.
+	 */
+	public boolean isSegmentedProgress() {
+		return mSegmentedProgress;
+	}
+
+	/**
+	 * Set whether user touch input is accepted or ignored.
+	 * param boolean value. True if user touch input is to be accepted, false if user touch input is to be ignored.
+	 */
+	public void setIsTouchEnabled(boolean isTouchEnabled) {
+		this.isTouchEnabled = isTouchEnabled;
+	}
+
+	/**
+	 * Get whether user touch input is accepted.
+	 * @return Boolean value of true if user touch input is accepted, false if user touch input is ignored.
+	 */
+	public boolean getIsTouchEnabled() {
+		return isTouchEnabled;
+	}
+
+
+	/**
+	 * Instantiatable Pointers addition contributed by Joseph Novak.
+	 */
+	protected ArrayList<Pointer> pPointerList = new ArrayList<>();
+
+	/**
+	 * Geometry, progress and touch state of every pointer. This view renders it.
+	 */
+	protected final CircularSeekBarModel mModel = new CircularSeekBarModel();
+
+	/**
+	 * Progress, angles, positions and colors of every pointer, in the same order as {@code pPointerList}.
+	 */
+	protected final CircularSeekBarModel.PointerStore mPointerStore = mModel.mPointers;
+    protected Pointer touchedPointer;
+
+	public Pointer addPointer(int pProgress, OnCircularSeekBarChangeListener l){
+		Pointer pointer = new Pointer(pProgress, this, l);
+		pPointerList.add(pointer);
+		markPointerDirty(pointer);
+		recalculateDirty();
+		invalidate();
+		return pointer;
+	}
+
+	public Pointer addPointer(int pProgress){
+		Pointer pointer = new Pointer(pProgress, this);
+		pPointerList.add(pointer);
+		markPointerDirty(pointer);
+		recalculateDirty();
+		invalidate();
+		return pointer;
+	}
+
+	public Pointer addPointer(){
+		Pointer pointer = new Pointer(this);
+		pPointerList.add(pointer);
+		markPointerDirty(pointer);
+		distributeProgress();
+		recalculateDirty();
+		invalidate();
+        return pointer;
+	};
+
+    public Pointer addPointer(OnCircularSeekBarChangeListener l){
+        Pointer pointer = new Pointer(this, l);
+        pPointerList.add(pointer);
+        markPointerDirty(pointer);
+        distributeProgress();
+        recalculateDirty();
+        invalidate();
+        return pointer;
+    };
+
+    //distributeProgress will position the pointers evenly around the maximum value of the circular seekbar.
+    protected void distributeProgress(){
+        beginBatchUpdate();
+        mModel.setMax(mMax);
+        mModel.distributeProgress();
+        applyModelChanges();
+        endBatchUpdate();
     }
 
-	protected void drawPointerProgress(Canvas c){
-        ListIterator<Pointer> pPointerIterator = pPointerList.listIterator();
-        while (pPointerIterator.hasNext()){
-			Pointer p = pPointerIterator.next();
-			try {
-				c.drawPath(p.mCircleProgressPath, p.mCircleProgressGlowPaint);
-				c.drawPath(p.mCircleProgressPath, p.mCircleProgressPaint);
-			} catch (NullPointerException e){
-			}
+	/**
+	 * Adds one pointer per progress value, with a single recalculation and invalidate.
+	 * @param progresses Progress of each new pointer.
+	 * @return The new pointers, in the same order as {@code progresses}.
+	 */
+	public Pointer[] addPointers(int[] progresses){
+		Pointer[] pointers = new Pointer[progresses.length];
+		beginBatchUpdate();
+		pPointerList.ensureCapacity(pPointerList.size() + progresses.length);
+		mModel.ensureCapacity(mPointerStore.size + progresses.length);
+		for (int i = 0; i < progresses.length; i++) {
+			Pointer pointer = new Pointer(progresses[i], this);
+			pPointerList.add(pointer);
+			markPointerDirty(pointer);
+			pointers[i] = pointer;
+		}
+		endBatchUpdate();
+		return pointers;
+	}
 
+	/**
+	 * Sets the progress of the pointers in the order they were added, with a single recalculation and invalidate.
+	 * Extra values, or missing values, are ignored.
+	 * @param progresses New progress of each pointer.
+	 */
+	public void setProgresses(int[] progresses){
+		cancelAnimation();
+		cancelFling();
+		beginBatchUpdate();
+		int count = Math.min(progresses.length, pPointerList.size());
+		for (int i = 0; i < count; i++) {
+			pPointerList.get(i).setProgress(progresses[i]);
 		}
+		endBatchUpdate();
 	}
 
-	protected void drawPointers(Canvas c){
-        ListIterator<Pointer> pPointerIterator = pPointerList.listIterator();
-        while (pPointerIterator.hasNext()){
-			Pointer p = pPointerIterator.next();
-			c.drawCircle(p.mPointerPositionXY[0], p.mPointerPositionXY[1], mPointerRadius + mPointerHaloWidth, p.mPointerHaloPaint);
-			c.drawCircle(p.mPointerPositionXY[0], p.mPointerPositionXY[1], mPointerRadius, p.mPointerPaint);
-			if (mUserIsMovingPointer) {
-				c.drawCircle(p.mPointerPositionXY[0], p.mPointerPositionXY[1], mPointerRadius + mPointerHaloWidth + (mPointerHaloBorderWidth / 2f), p.mPointerHaloBorderPaint);
-			}
+	/**
+	 * Publishes new progress values for the pointers, in the order they were added. Safe to call from any thread,
+	 * whether or not the view is attached.
+	 * The values are copied, and the latest copy is applied on the next frame with a single recalculation and invalidate;
+	 * snapshots published before that frame are dropped. Pointers the user is dragging or flinging keep their progress.
+	 * Listeners are notified on the UI thread, as for {@code setProgresses()}, and a running animation is cancelled.
+	 * Extra values, or missing values, are ignored.
+	 * @param progresses New progress of each pointer.
+	 */
+	public void publishProgresses(int[] progresses){
+		mPublishedProgresses.set(progresses.clone());
+		if (mPublishScheduled.compareAndSet(false, true)) {
+			mMainHandler.post(mPostPublishedProgresses);
 		}
 	}
 
-	protected void calculateAllPositions(){
-        ListIterator<Pointer> pPointerIterator = pPointerList.listIterator();
-        while (pPointerIterator.hasNext()){
-			Pointer p = pPointerIterator.next();
-			p.calculatePointerXYPosition();
+	/**
+	 * Sets the progress of the pointers in the order they were added, as a single batch,
+	 * leaving out the pointers the user is dragging or flinging.
+	 * @param progresses New progress of each pointer.
+	 */
+	protected void setUndraggedProgresses(int[] progresses){
+		beginBatchUpdate();
+		int count = Math.min(progresses.length, pPointerList.size());
+		for (int i = 0; i < count; i++) {
+			Pointer pointer = pPointerList.get(i);
+			if (pointer == mFlingPointer || mModel.findTouchSlotForPointer(i) >= 0) {
+				continue;
+			}
+			pointer.setProgress(progresses[i]);
 		}
+		endBatchUpdate();
+	}
 
+	/**
+	 * Animates the pointers, in the order they were added, to new progress values.
+	 * Every pointer is moved on the same frame callback, with one recalculation per frame and no
+	 * allocation per frame. Listeners are notified as for {@code setProgresses()}.
+	 * Extra values, or missing values, are ignored, and so are pointers the user is dragging. Replaces any
+	 * running animation, and is cancelled when the user touches a pointer or a pointer is removed.
+	 * @param progresses Target progress of each pointer.
+	 * @param durationMs Duration of the animation in milliseconds. With 0 or less the pointers jump to the targets.
+	 * @param interpolator Easing of the animation, or null for linear.
+	 */
+	public void animateTo(int[] progresses, long durationMs, TimeInterpolator interpolator){
+		cancelAnimation();
+		cancelFling();
+		if (durationMs <= 0) {
+			setUndraggedProgresses(progresses);
+			return;
+		}
+		int count = Math.min(progresses.length, pPointerList.size());
+		if (mAnimationFrom.length < count) {
+			mAnimationFrom = new float[count];
+			mAnimationTo = new float[count];
+		}
+		for (int i = 0; i < count; i++) {
+			mAnimationFrom[i] = mModel.getExactProgress(i);
+			// Pointers the user is dragging stay under the finger
+			mAnimationTo[i] = (mModel.findTouchSlotForPointer(i) >= 0) ? Float.NaN : progresses[i];
+		}
+		mAnimationCount = count;
+		mAnimationStartNanos = -1;
+		mAnimationDurationNanos = durationMs * 1000000L;
+		mAnimationInterpolator = interpolator;
+		if (count > 0) {
+			getUiChoreographer().postFrameCallback(mAnimationFrameCallback);
+		}
 	}
 
-	protected void initAllPointers(){
-        ListIterator<Pointer> pPointerIterator = pPointerList.listIterator();
-        while (pPointerIterator.hasNext()){
-			Pointer p = pPointerIterator.next();
-			p.init();
+	/**
+	 * Stops the running animation, leaving the pointers where they are.
+	 */
+	public void cancelAnimation(){
+		if (mAnimationCount > 0) {
+			mAnimationCount = 0;
+			getUiChoreographer().removeFrameCallback(mAnimationFrameCallback);
 		}
+		mAnimationInterpolator = null;
 	}
 
-    protected void calculateAllPointerAngle(){
-        ListIterator<Pointer> pPointerIterator = pPointerList.listIterator();
-        while (pPointerIterator.hasNext()){
-            Pointer p = pPointerIterator.next();
-            p.calculatePointerAngle();
-        }
-    }
+	/**
+	 * Get whether an animation started by {@code animateTo()} is running.
+	 * @return Boolean value of true if pointers are being animated.
+	 */
+	public boolean isAnimating(){
+		return mAnimationCount > 0;
+	}
 
-    protected void calculateAllProgressDegrees(){
-        ListIterator<Pointer> pPointerIterator = pPointerList.listIterator();
-        while (pPointerIterator.hasNext()){
-            Pointer p = pPointerIterator.next();
-            p.calculateProgressDegrees();
-        }
-    }
+	/**
+	 * Removes a pointer. Only the sorted index and the view are updated; the other pointers are not recalculated.
+	 * @param pointer The pointer to remove.
+	 * @return True if the pointer was present.
+	 */
+	public boolean removePointer(Pointer pointer){
+		int index = pointer.mIndex;
+		if (index < 0 || index >= pPointerList.size() || pPointerList.get(index) != pointer) {
+			return false;
+		}
+		cancelAnimation();
+		if (mFlingPointer == pointer) {
+			cancelFling();
+		}
+		pPointerList.remove(index);
+		mModel.removePointer(index);
+		for (int i = index; i < pPointerList.size(); i++) {
+			pPointerList.get(i).mIndex = i;
+		}
+		pointer.mIndex = -1;
+		if (pointer.mDirty) {
+			pointer.mDirty = false;
+			mDirtyPointers.remove(pointer);
+		}
+		if (pointer.mBatchChanged) {
+			pointer.mBatchChanged = false;
+			mBatchChangedPointers.remove(pointer);
+		}
+		if (pointer.mDispatchPending || pointer.mUserDispatchPending) {
+			pointer.mDispatchPending = false;
+			pointer.mUserDispatchPending = false;
+			mPendingDispatchPointers.remove(pointer);
+		}
+		for (int i = 0; i < mProgressStreams.size(); i++) {
+			mProgressStreams.get(i).onPointerRemoved(index);
+		}
+		mUserIsMovingPointer = mModel.getTouchCount() > 0;
+		if (touchedPointer == pointer) {
+			touchedPointer = null;
+		}
+		mSegmentsDirty = true;
+		invalidate();
+		return true;
+	}
+
+	/**
+	 * Removes every pointer.
+	 */
+	public void clearPointers(){
+		cancelAnimation();
+		cancelFling();
+		for (int i = 0; i < pPointerList.size(); i++) {
+			pPointerList.get(i).mIndex = -1;
+		}
+		pPointerList.clear();
+		mModel.clearPointers();
+		clearDirtyPointers();
+		for (int i = 0; i < mBatchChangedPointers.size(); i++) {
+			mBatchChangedPointers.get(i).mBatchChanged = false;
+		}
+		mBatchChangedPointers.clear();
+		for (int i = 0; i < mPendingDispatchPointers.size(); i++) {
+			mPendingDispatchPointers.get(i).mDispatchPending = false;
+			mPendingDispatchPointers.get(i).mUserDispatchPending = false;
+		}
+		mPendingDispatchPointers.clear();
+		for (int i = 0; i < mProgressStreams.size(); i++) {
+			mProgressStreams.get(i).onPointersCleared();
+		}
+		touchedPointer = null;
+		mUserIsMovingPointer = false;
+		mSegmentsDirty = true;
+		invalidate();
+	}
 
-    protected Pointer calculatePointerTouched(float touchAngle, float touchEventRadius, float innerRadius, float outerRadius, float pointerRadiusDegrees) {
-		ListIterator<Pointer> pPointerIterator = pPointerList.listIterator();
-		Pointer p = null;
-		while (pPointerIterator.hasNext()) {
-			p = pPointerIterator.next();
-			cwDistanceFromPointer = touchAngle - p.mPointerPosition;
-			cwDistanceFromPointer = (cwDistanceFromPointer < 0 ? 360f + cwDistanceFromPointer : cwDistanceFromPointer);
-			ccwDistanceFromPointer = 360f - cwDistanceFromPointer;
-			// This is for if the first touch is on the actual pointer.
-			if (((touchEventRadius >= innerRadius + 3) && (touchEventRadius <= outerRadius + 3)) && ((cwDistanceFromPointer <= pointerRadiusDegrees + 3) || (ccwDistanceFromPointer <= pointerRadiusDegrees + 3))) {
-				//p.setProgressBasedOnAngle(p.mPointerPosition);
-				mIsMovingCW = true;
-				touchedPointer = p;
-				return touchedPointer;
-			} else if (cwDistanceFromStart > mTotalCircleDegrees) { // If the user is touching outside of the start AND end
-				mUserIsMovingPointer = false;
+	protected void drawPointerProgress(Canvas c){
+		boolean drawGlow = mGlowMode != GLOW_MODE_NONE && (mGlowWhileDragging || !mUserIsMovingPointer);
+		if (mSegmentedProgress) {
+			drawSegmentedProgress(c, drawGlow);
+			return;
+		}
+		for (int i = 0; i < pPointerList.size(); i++) {
+			Pointer p = pPointerList.get(i);
+			if (p.mCircleProgressPath == null || p.mCircleProgressPaint == null) {
 				continue;
-			} else if ((touchEventRadius >= innerRadius) && (touchEventRadius <= outerRadius)) { // If the user is touching near the circle
-				//TODO get a toggle on this for instant touch.
-				//p.setProgressBasedOnAngle(touchAngle);
-				p = null;
+			}
+			if (drawGlow) {
+				Paint glowPaint = (mGlowMode == GLOW_MODE_CACHED) ? getCachedGlowPaint(p.mCircleProgressPaint.getColor()) : p.mCircleProgressGlowPaint;
+				if (glowPaint != null) {
+					c.drawPath(p.mCircleProgressPath, glowPaint);
+				}
+			}
+			c.drawPath(p.mCircleProgressPath, p.mCircleProgressPaint);
+		}
+	}
+
+	/**
+	 * Draws the ring one segment per pointer, from its lower neighbor up to the pointer itself,
+	 * using the pointer's own paints. Every part of the ring is covered by exactly one segment.
+	 * @param c The canvas to draw on.
+	 * @param drawGlow True if the glow should be drawn behind each segment.
+	 */
+	protected void drawSegmentedProgress(Canvas c, boolean drawGlow) {
+		if (mSegmentsDirty) {
+			calculateAllSegments();
+		}
+		for (int i = 0; i < mModel.getSortedCount(); i++) {
+			Pointer p = pPointerList.get(mModel.getSortedPointer(i));
+			if (p.mSegmentPath == null || p.mCircleProgressPaint == null) {
 				continue;
+			}
+			if (drawGlow) {
+				Paint glowPaint = (mGlowMode == GLOW_MODE_CACHED) ? getCachedGlowPaint(p.mCircleProgressPaint.getColor()) : p.mCircleProgressGlowPaint;
+				if (glowPaint != null) {
+					c.drawPath(p.mSegmentPath, glowPaint);
+				}
+			}
+			c.drawPath(p.mSegmentPath, p.mCircleProgressPaint);
+		}
+	}
+
+	/**
+	 * Rebuilds the segment path of every pointer from the sorted pointer order.
+	 */
+	protected void calculateAllSegments() {
+		mModel.sortPointers();
+		float previousDegrees = 0f;
+		for (int i = 0; i < mModel.getSortedCount(); i++) {
+			Pointer p = pPointerList.get(mModel.getSortedPointer(i));
+			if (p.mSegmentPath == null) {
+				p.mSegmentPath = new Path();
+			} else {
+				p.mSegmentPath.reset();
+			}
+			float degrees = mPointerStore.sweep[p.mIndex];
+			float sweep = degrees - previousDegrees;
+			if (sweep > 0f) {
+				p.mSegmentPath.addArc(mCircleRectF, mStartAngle + previousDegrees, sweep);
+				previousDegrees = degrees;
+			}
+		}
+		mSegmentsDirty = false;
+	}
 
-			} else { // If the user is not touching near the circle
-				mUserIsMovingPointer = false;
+	/**
+	 * Gets the shader-backed glow paint, tinted with a progress color, rendering the blurred ring on first use.
+	 * The ring is blurred once on a software canvas into an {@code ALPHA_8} mask, so no mask filter is involved
+	 * when drawing, and the mask costs one byte per pixel no matter how many colors use it.
+	 * @param color The progress color the glow is based on.
+	 * @return The glow {@code Paint}, or null if the circle has not been measured yet.
+	 */
+	protected Paint getCachedGlowPaint(int color) {
+		if (mCachedGlowPaint == null) {
+			mCachedGlowPaint = createCachedGlowPaint();
+			if (mCachedGlowPaint == null) {
 				return null;
 			}
 		}
+		// An alpha-only shader takes its color from the paint
+		mCachedGlowPaint.setColor(color);
+		return mCachedGlowPaint;
+	}
+
+	/**
+	 * Renders the blurred ring into an alpha mask and wraps it in a glow paint.
+	 * @return The glow {@code Paint}, or null if the circle has not been measured yet.
+	 */
+	protected Paint createCachedGlowPaint() {
+		float glowRadius = DEFAULT_GLOW_RADIUS * DPTOPX_SCALE;
+		float padding = (mCircleStrokeWidth / 2f) + (glowRadius * 2f);
+		int width = (int) Math.ceil((mCircleWidth + padding) * 2f);
+		int height = (int) Math.ceil((mCircleHeight + padding) * 2f);
+		if (width <= 0 || height <= 0) {
+			return null;
+		}
 
-		return p;
+		Bitmap glowBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+		Canvas glowCanvas = new Canvas(glowBitmap);
+		glowCanvas.translate(width / 2f, height / 2f);
+		glowCanvas.drawOval(mCircleRectF, PaintCache.obtain(Color.WHITE, 255, mCircleStrokeWidth, Paint.Style.STROKE, glowRadius));
+
+		BitmapShader glowShader = new BitmapShader(glowBitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+		Matrix shaderMatrix = new Matrix();
+		shaderMatrix.setTranslate(-width / 2f, -height / 2f);
+		glowShader.setLocalMatrix(shaderMatrix);
+
+		Paint glowPaint = new Paint();
+		glowPaint.setAntiAlias(true);
+		glowPaint.setStyle(Paint.Style.STROKE);
+		glowPaint.setStrokeWidth(padding * 2f);
+		glowPaint.setStrokeJoin(Paint.Join.ROUND);
+		glowPaint.setStrokeCap(Paint.Cap.ROUND);
+		glowPaint.setShader(glowShader);
+
+		return glowPaint;
+	}
 
+	protected void clearCachedGlowPaints() {
+		mCachedGlowPaint = null;
 	}
 
+	protected void drawPointers(Canvas c){
+		float[] x = mPointerStore.x;
+		float[] y = mPointerStore.y;
+		for (int i = 0; i < pPointerList.size(); i++) {
+			Pointer p = pPointerList.get(i);
+			c.drawCircle(x[i], y[i], mPointerRadius + mPointerHaloWidth, p.mPointerHaloPaint);
+			c.drawCircle(x[i], y[i], mPointerRadius, p.mPointerPaint);
+			if (mUserIsMovingPointer) {
+				c.drawCircle(x[i], y[i], mPointerRadius + mPointerHaloWidth + (mPointerHaloBorderWidth / 2f), p.mPointerHaloBorderPaint);
+			}
+		}
+	}
+
+	protected void initAllPointers(){
+		for (int i = 0; i < pPointerList.size(); i++) {
+			pPointerList.get(i).init();
+		}
+	}
+
+	/**
+	 * @deprecated Positions are calculated by {@code mModel}; use {@code recalculateAll()}.
+	 */
+	@Deprecated
+	protected void calculateAllPositions(){
+		for (int i = 0; i < pPointerList.size(); i++) {
+			mModel.calculatePointerXYPosition(i);
+		}
+	}
+
+	/**
+	 * @deprecated Angles are calculated by {@code mModel}; use {@code recalculateAll()}.
+	 */
+	@Deprecated
+	protected void calculateAllPointerAngle(){
+		for (int i = 0; i < pPointerList.size(); i++) {
+			mModel.calculatePointerAngle(i);
+		}
+	}
+
+	/**
+	 * @deprecated Sweeps are calculated by {@code mModel}; use {@code recalculateAll()}.
+	 */
+	@Deprecated
+	protected void calculateAllProgressDegrees(){
+		for (int i = 0; i < pPointerList.size(); i++) {
+			mModel.calculateProgressDegrees(i);
+		}
+	}
+
+	/**
+	 * Finds the pointer under a touch at the given angle and distance from the center.
+	 * @deprecated The hit test lives in {@code mModel}; use {@code mModel.calculatePointerTouched()}.
+	 * The ring and pointer size come from the model, so the last three arguments are ignored.
+	 * @return The touched pointer, or null.
+	 */
+	@Deprecated
+	protected Pointer calculatePointerTouched(float touchAngle, float touchEventRadius, float innerRadius, float outerRadius, float pointerRadiusDegrees) {
+		float cwDistanceFromStart = touchAngle - mStartAngle;
+		mModel.cwDistanceFromStart = (cwDistanceFromStart < 0 ? 360f + cwDistanceFromStart : cwDistanceFromStart);
+		int index = mModel.calculatePointerTouched(touchAngle, touchEventRadius);
+		return (index >= 0) ? pPointerList.get(index) : null;
+	}
+
+	/**
+	 * Moves every pointer ahead of {@code touched} by the amount it moved since {@code priorProgress}.
+	 * @deprecated Gang moves are applied by {@code mModel.setGangProgress()} while dragging.
+	 */
+	@Deprecated
+	protected void setGangProgress(Pointer touched, int priorProgress){
+		touched.checkAttached();
+		beginBatchUpdate();
+		mModel.setGangProgress(touched.mIndex, priorProgress);
+		applyModelChanges();
+		endBatchUpdate();
+	}
+
+    /**
+     * Get the progress of a pointer relative to its nearest lower neighbor.
+     * @param currentPointer The pointer to measure.
+     * @return The difference between the pointer's progress and the next lower progress (or 0).
+     * @throws IllegalStateException If the pointer has been removed.
+     */
     public int getRelativeProgress(Pointer currentPointer) {
-        ListIterator<Pointer> pPointerIterator = pPointerList.listIterator();
-        int nearestNeighbor = 0;
-        int touched = currentPointer.getProgress();
-        while (pPointerIterator.hasNext()) {
-            Pointer p = pPointerIterator.next();
-            int accessed = p.getProgress();
-            if (touched > accessed && (accessed > nearestNeighbor && accessed < touched)){
-                nearestNeighbor = accessed;
-            }
-        }
-        int relativeProgress = touched-nearestNeighbor;
-        return relativeProgress;
+        currentPointer.checkAttached();
+        return mModel.getRelativeProgress(currentPointer.mIndex);
     }
 
+	/**
+	 * Get the pointer with the greatest progress strictly less than the given pointer's progress.
+	 * O(log n) once the sorted order is up to date.
+	 * @param currentPointer The pointer to find the neighbor of.
+	 * @return The lower neighbor, or null if there is none.
+	 */
+	protected Pointer getLowerNeighbor(Pointer currentPointer) {
+		int index = mModel.getLowerNeighbor(currentPointer.mIndex);
+		return (index >= 0) ? pPointerList.get(index) : null;
+	}
+
+	/**
+	 * Get the pointer with the smallest progress strictly greater than the given pointer's progress.
+	 * O(log n) once the sorted order is up to date.
+	 * @param currentPointer The pointer to find the neighbor of.
+	 * @return The upper neighbor, or null if there is none.
+	 */
+	protected Pointer getUpperNeighbor(Pointer currentPointer) {
+		int index = mModel.getUpperNeighbor(currentPointer.mIndex);
+		return (index >= 0) ? pPointerList.get(index) : null;
+	}
+
+	/**
+	 * Fills {@code out} with the relative progress of every pointer, in ascending order of progress.
+	 * Each value matches {@code getRelativeProgress()} for that pointer. Runs in one pass and does not allocate.
+	 * @param out Array to fill. If it is shorter than the number of pointers, only the first values are written.
+	 * @return The number of pointers.
+	 */
+	public int getSegments(int[] out) {
+		return mModel.getSegments(out);
+	}
+
+	/**
+	 * Handle to a single thumb. Progress, angles, position and colors live in {@code mPointerStore}
+	 * at {@code mIndex}; the handle only keeps the objects needed for drawing.
+	 */
 	protected class Pointer{
-		protected float[] mPointerPositionXY = new float[2];
+		/**
+		 * Index of this pointer in {@code mPointerStore} and {@code pPointerList}, or -1 once it has been removed.
+		 */
+		int mIndex = mModel.addPointer();
 		CircularSeekBar seek;
 		Path mCircleProgressPath;
-		int mProgress;
-        float mPointerPosition;
-        float mProgressDegrees;
+		Path mSegmentPath;
         OnCircularSeekBarChangeListener changeListener;
 		Paint mPointerHaloPaint;
 		Paint mPointerPaint;
@@ -1176,23 +2685,87 @@ public class CircularSeekBar extends View {
 		Paint mCircleProgressGlowPaint;
 
 		protected boolean CUSTOM_COLOR = false;
-		int pointerColor;
-		int progressColor;
 
-        public void setPointerColor(int color) {
+		/**
+		 * True while this pointer is queued in {@code mDirtyPointers}.
+		 */
+		boolean mDirty = false;
+
+		/**
+		 * True when this pointer's {@code Paint} instances must be resolved again on the next recalculation.
+		 */
+		boolean mPaintDirty = true;
+
+		/**
+		 * True while this pointer is queued in {@code mBatchChangedPointers}.
+		 */
+		boolean mBatchChanged = false;
+
+		/**
+		 * True while a seekbar listener call for this pointer is queued in {@code mPendingDispatchPointers}.
+		 */
+		boolean mDispatchPending = false;
+
+		/**
+		 * True while a call to this pointer's own listener is queued in {@code mPendingDispatchPointers}.
+		 */
+		boolean mUserDispatchPending = false;
+
+		public void setPointerColor(int color) {
+			if (mIndex < 0 || (this.CUSTOM_COLOR && mPointerStore.pointerColor[mIndex] == color)) {
+				return;
+			}
+			if (!this.CUSTOM_COLOR) {
+				mPointerStore.progressColor[mIndex] = mCircleProgressColor;
+			}
 			this.CUSTOM_COLOR = true;
-			this.pointerColor = color;
+			mPointerStore.pointerColor[mIndex] = color;
+			colorChanged();
 		};
 
 		public void setProgressColor(int color) {
+			if (mIndex < 0 || (this.CUSTOM_COLOR && mPointerStore.progressColor[mIndex] == color)) {
+				return;
+			}
+			if (!this.CUSTOM_COLOR) {
+				mPointerStore.pointerColor[mIndex] = mPointerColor;
+			}
 			this.CUSTOM_COLOR = true;
-			this.progressColor = color;
+			mPointerStore.progressColor[mIndex] = color;
+			colorChanged();
 		};
 
 		public void setColor(int color){
+			if (mIndex < 0 || (this.CUSTOM_COLOR && mPointerStore.pointerColor[mIndex] == color && mPointerStore.progressColor[mIndex] == color)) {
+				return;
+			}
 			this.CUSTOM_COLOR = true;
-			this.pointerColor = color;
-			this.progressColor = color;
+			mPointerStore.pointerColor[mIndex] = color;
+			mPointerStore.progressColor[mIndex] = color;
+			colorChanged();
+		}
+
+		/**
+		 * Recalculates and invalidates the pointer after one of its colors changed,
+		 * or only records the change while a batch is open.
+		 */
+		private void colorChanged() {
+			this.mPaintDirty = true;
+			markPointerDirty(this);
+			if (mPartialInvalidation) {
+				// The thumb stays where it is, but its whole progress arc is repainted
+				if (mCircleWidth <= 0f || mCircleHeight <= 0f) {
+					mDirtyRegionFull = true;
+				} else {
+					includeDirtyArc(mStartAngle, mPointerStore.sweep[mIndex]);
+				}
+			}
+			if (mBatchDepth > 0) {
+				return;
+			}
+
+			recalculateDirty();
+			invalidateChanged();
 		}
 
 		//Constructor with a defined progress position (in percentage of total), as well as a change listener
@@ -1220,60 +2793,65 @@ public class CircularSeekBar extends View {
 		}
 
 		private void setProgress(int progress) {
-			if (this.mProgress != progress) {
-				this.mProgress = progress;
-				if (mOnCircularSeekBarChangeListener != null) {
-					mOnCircularSeekBarChangeListener.onProgressChanged(seek, progress, getRelativeProgress(touchedPointer), false);
-				}
+			if (mPointerStore.progress[mIndex] != progress || mPointerStore.exactProgress[mIndex] != progress) {
+				mModel.setProgress(mIndex, progress);
+				progressChanged();
+			}
+		}
 
-				recalculateAll();
-				invalidate();
+		private void setExactProgress(float progress) {
+			float exactProgress = mModel.isHighResolution() ? progress : Math.round(progress);
+			if (mPointerStore.exactProgress[mIndex] != exactProgress) {
+				mModel.setExactProgress(mIndex, exactProgress);
+				progressChanged();
 			}
 		}
 
-		private void calculatePointerXYPosition() {
-			PathMeasure pm = new PathMeasure(this.mCircleProgressPath, false);
-			boolean returnValue = pm.getPosTan(pm.getLength(), this.mPointerPositionXY, null);
-			if (!returnValue) {
-				pm = new PathMeasure(mCirclePath, false);
-				returnValue = pm.getPosTan(0, this.mPointerPositionXY, null);
+		/**
+		 * Recalculates, invalidates and notifies the listener after the stored progress changed,
+		 * or only records the change while a batch is open.
+		 */
+		private void progressChanged() {
+			markPointerDirty(this);
+			if (mBatchDepth > 0) {
+				if (!this.mBatchChanged) {
+					this.mBatchChanged = true;
+					mBatchChangedPointers.add(this);
+				}
+				return;
 			}
+
+			recalculateDirty();
+			invalidateChanged();
+			dispatchProgressChanged(this);
 		}
 
 		private void init(){
-			this.mCircleProgressPath = new Path();
-			this.mCircleProgressPath.addArc(mCircleRectF, mStartAngle, this.mProgressDegrees);
+			if (this.mCircleProgressPath == null) {
+				this.mCircleProgressPath = new Path();
+			} else {
+				this.mCircleProgressPath.reset();
+			}
+			this.mCircleProgressPath.addArc(mCircleRectF, mStartAngle, mPointerStore.sweep[mIndex]);
+			initPaints();
+		}
+
+		/**
+		 * Picks up the shared paints, or rebuilds the custom color paints, if they changed.
+		 */
+		private void initPaints(){
+			if (!this.mPaintDirty && !mPaintsDirty) {
+				return;
+			}
+			this.mPaintDirty = false;
 			if (CUSTOM_COLOR) {
-				this.mCircleProgressPaint = new Paint();
-				this.mCircleProgressPaint.setAntiAlias(true);
-				this.mCircleProgressPaint.setDither(true);
-				this.mCircleProgressPaint.setColor(this.progressColor);
-				this.mCircleProgressPaint.setStrokeWidth(mCircleStrokeWidth);
-				this.mCircleProgressPaint.setStyle(Paint.Style.STROKE);
-				this.mCircleProgressPaint.setStrokeJoin(Paint.Join.ROUND);
-				this.mCircleProgressPaint.setStrokeCap(Paint.Cap.ROUND);
-
-				this.mCircleProgressGlowPaint = new Paint();
-				this.mCircleProgressGlowPaint.set(this.mCircleProgressPaint);
-				this.mCircleProgressGlowPaint.setMaskFilter(new BlurMaskFilter((5f * DPTOPX_SCALE), BlurMaskFilter.Blur.NORMAL));
-
-				this.mPointerPaint = new Paint();
-				this.mPointerPaint.setAntiAlias(true);
-				this.mPointerPaint.setDither(true);
-				this.mPointerPaint.setStyle(Paint.Style.FILL);
-				this.mPointerPaint.setColor(this.pointerColor);
-				this.mPointerPaint.setStrokeWidth(mPointerRadius);
-
-				this.mPointerHaloPaint = new Paint();
-				this.mPointerHaloPaint.set(this.mPointerPaint);
-				this.mPointerHaloPaint.setColor(this.pointerColor);
-				this.mPointerHaloPaint.setAlpha(mPointerAlpha);
-				this.mPointerHaloPaint.setStrokeWidth(mPointerRadius + mPointerHaloWidth);
-
-				this.mPointerHaloBorderPaint = new Paint();
-				this.mPointerHaloBorderPaint.set(this.mPointerPaint);
-				this.mPointerHaloBorderPaint.setStrokeWidth(mPointerHaloBorderWidth);
-				this.mPointerHaloBorderPaint.setStyle(Paint.Style.STROKE);
+				int progressColor = mPointerStore.progressColor[mIndex];
+				int pointerColor = mPointerStore.pointerColor[mIndex];
+				this.mCircleProgressPaint = PaintCache.obtain(progressColor, Color.alpha(progressColor), mCircleStrokeWidth, Paint.Style.STROKE, 0f);
+				this.mCircleProgressGlowPaint = PaintCache.obtain(progressColor, Color.alpha(progressColor), mCircleStrokeWidth, Paint.Style.STROKE, DEFAULT_GLOW_RADIUS * DPTOPX_SCALE);
+				this.mPointerPaint = PaintCache.obtain(pointerColor, Color.alpha(pointerColor), mPointerRadius, Paint.Style.FILL, 0f);
+				this.mPointerHaloPaint = PaintCache.obtain(pointerColor, mPointerAlpha, mPointerRadius + mPointerHaloWidth, Paint.Style.FILL, 0f);
+				this.mPointerHaloBorderPaint = PaintCache.obtain(pointerColor, Color.alpha(pointerColor), mPointerHaloBorderWidth, Paint.Style.STROKE, 0f);
 			}
 			else {
 				this.mCircleProgressPaint = seek.mCircleProgressPaint;
@@ -1284,45 +2862,236 @@ public class CircularSeekBar extends View {
 			}
 		}
 
-        /**
-         * Calculate the degrees that the progress represents. Also called the sweep angle.
-         * Sets mProgressDegrees to that value.
-         */
-        protected void calculateProgressDegrees() {
-            this.mProgressDegrees = this.mPointerPosition - mStartAngle; // Verified
-            this.mProgressDegrees = (this.mProgressDegrees < 0 ? 360f + this.mProgressDegrees : this.mProgressDegrees); // Verified
-        }
-
-        /**
-         * Calculate the pointer position (and the end of the progress arc) in degrees.
-         * Sets mPointerPosition to that value.
-         */
-        protected void calculatePointerAngle() {
-            float progressPercent = ((float)mProgress / (float)mMax);
-            this.mPointerPosition = (progressPercent * mTotalCircleDegrees) + mStartAngle;
-            this.mPointerPosition = this.mPointerPosition % 360f;
-        }
-
         protected void setProgressBasedOnAngle(float angle) {
-            this.mPointerPosition = angle;
-            calculateProgressDegrees();
-            this.mProgress = Math.round((float)mMax * this.mProgressDegrees / mTotalCircleDegrees);
+            mModel.setProgressBasedOnAngle(mIndex, angle);
+            markPointerDirty(this);
         }
 
 		protected float getAngle() {
-			return this.mProgressDegrees;
+			return mPointerStore.sweep[mIndex];
+		}
+
+		/**
+		 * @deprecated Sweeps are calculated by {@code mModel}; use {@code recalculatePointer()}.
+		 */
+		@Deprecated
+		protected void calculateProgressDegrees() {
+			mModel.calculateProgressDegrees(mIndex);
+		}
+
+		/**
+		 * @deprecated Angles are calculated by {@code mModel}; use {@code recalculatePointer()}.
+		 */
+		@Deprecated
+		protected void calculatePointerAngle() {
+			mModel.calculatePointerAngle(mIndex);
 		}
 
         /**
          * Get the progress of the CircularSeekBar.
          * @return The progress of the CircularSeekBar.
+         * @throws IllegalStateException If the pointer has been removed.
          */
         public int getProgress() {
-            int progress = Math.round((float)mMax * mProgressDegrees / mTotalCircleDegrees);
-            return progress;
+            checkAttached();
+            return mModel.getProgress(mIndex);
+        }
+
+        /**
+         * Get the progress of the pointer, including the fraction when high resolution progress is enabled.
+         * @return The exact progress of the pointer.
+         * @throws IllegalStateException If the pointer has been removed.
+         */
+        public float getExactProgress() {
+            checkAttached();
+            return mModel.getExactProgress(mIndex);
+        }
+
+        /**
+         * Get whether the pointer is still part of the seekbar. Once removed, its color setters are ignored.
+         * @return Boolean value of false after {@code removePointer()} or {@code clearPointers()}.
+         */
+        public boolean isAttached() {
+            return mIndex >= 0;
+        }
+
+        private void checkAttached() {
+            if (mIndex < 0) {
+                throw new IllegalStateException("Pointer has been removed from the CircularSeekBar");
+            }
         }
 
 
 	}
 
+	/**
+	 * Saved state of every pointer, packed into primitive arrays.
+	 */
+	protected static class PointerState implements Parcelable {
+
+		/**
+		 * Exact progress of each pointer.
+		 */
+		final float[] progress;
+
+		/**
+		 * Pointer color and progress color of each pointer, interleaved.
+		 */
+		final int[] colors;
+
+		/**
+		 * One bit per pointer, set when the pointer has custom colors.
+		 */
+		final int[] customColorBits;
+
+		PointerState(CircularSeekBarModel.PointerStore store, ArrayList<Pointer> pointers) {
+			int count = store.size;
+			progress = Arrays.copyOf(store.exactProgress, count);
+			colors = new int[count * 2];
+			customColorBits = new int[(count + 31) >>> 5];
+			for (int i = 0; i < count; i++) {
+				colors[i * 2] = store.pointerColor[i];
+				colors[(i * 2) + 1] = store.progressColor[i];
+				if (pointers.get(i).CUSTOM_COLOR) {
+					customColorBits[i >>> 5] |= 1 << (i & 31);
+				}
+			}
+		}
+
+		PointerState(Parcel in) {
+			progress = in.createFloatArray();
+			colors = in.createIntArray();
+			customColorBits = in.createIntArray();
+		}
+
+		int size() {
+			return progress.length;
+		}
+
+		boolean hasCustomColor(int index) {
+			return (customColorBits[index >>> 5] & (1 << (index & 31))) != 0;
+		}
+
+		@Override
+		public int describeContents() {
+			return 0;
+		}
+
+		@Override
+		public void writeToParcel(Parcel out, int flags) {
+			out.writeFloatArray(progress);
+			out.writeIntArray(colors);
+			out.writeIntArray(customColorBits);
+		}
+
+		public static final Parcelable.Creator<PointerState> CREATOR = new Parcelable.Creator<PointerState>() {
+			@Override
+			public PointerState createFromParcel(Parcel in) {
+				return new PointerState(in);
+			}
+
+			@Override
+			public PointerState[] newArray(int size) {
+				return new PointerState[size];
+			}
+		};
+	}
+
+	/**
+	 * Cache of immutable {@code Paint} instances shared by every custom-colored {@code Pointer}
+	 * across all CircularSeekBar instances. Paints handed out here must never be mutated.
+	 * Only accessed from the UI thread.
+	 */
+	protected static class PaintCache {
+
+		/**
+		 * Upper bound on cached paints. The cache is simply dropped when it is exceeded;
+		 * pointers keep the references they already hold.
+		 */
+		protected static final int MAX_ENTRIES = 256;
+
+		private static final HashMap<Key, Paint> sPaints = new HashMap<>();
+
+		/**
+		 * Reused for lookups so a cache hit does not allocate.
+		 */
+		private static final Key sLookupKey = new Key(0, 0, 0f, Paint.Style.FILL, 0f);
+
+		/**
+		 * Returns a shared {@code Paint} for the given attributes, creating it on first use.
+		 * @param color The color of the paint.
+		 * @param alpha The alpha applied on top of {@code color} (0..255).
+		 * @param strokeWidth The stroke width (in pixels).
+		 * @param style The paint style.
+		 * @param blurRadius Radius of a {@code BlurMaskFilter} (in pixels), or 0 for none.
+		 * @return The shared {@code Paint} instance.
+		 */
+		protected static Paint obtain(int color, int alpha, float strokeWidth, Paint.Style style, float blurRadius) {
+			sLookupKey.set(color, alpha, strokeWidth, style, blurRadius);
+			Paint paint = sPaints.get(sLookupKey);
+			if (paint == null) {
+				paint = new Paint();
+				paint.setAntiAlias(true);
+				paint.setDither(true);
+				paint.setColor(color);
+				paint.setAlpha(alpha);
+				paint.setStrokeWidth(strokeWidth);
+				paint.setStyle(style);
+				if (style != Paint.Style.FILL) {
+					paint.setStrokeJoin(Paint.Join.ROUND);
+					paint.setStrokeCap(Paint.Cap.ROUND);
+				}
+				if (blurRadius > 0f) {
+					paint.setMaskFilter(new BlurMaskFilter(blurRadius, BlurMaskFilter.Blur.NORMAL));
+				}
+				if (sPaints.size() >= MAX_ENTRIES) {
+					sPaints.clear();
+				}
+				sPaints.put(new Key(color, alpha, strokeWidth, style, blurRadius), paint);
+			}
+			return paint;
+		}
+
+		private static final class Key {
+			int color;
+			int alpha;
+			float strokeWidth;
+			Paint.Style style;
+			float blurRadius;
+
+			Key(int color, int alpha, float strokeWidth, Paint.Style style, float blurRadius) {
+				set(color, alpha, strokeWidth, style, blurRadius);
+			}
+
+			void set(int color, int alpha, float strokeWidth, Paint.Style style, float blurRadius) {
+				this.color = color;
+				this.alpha = alpha;
+				this.strokeWidth = strokeWidth;
+				this.style = style;
+				this.blurRadius = blurRadius;
+			}
+
+			@Override
+			public boolean equals(Object o) {
+				if (!(o instanceof Key)) {
+					return false;
+				}
+				Key k = (Key) o;
+				return color == k.color && alpha == k.alpha && style == k.style
+						&& Float.compare(strokeWidth, k.strokeWidth) == 0
+						&& Float.compare(blurRadius, k.blurRadius) == 0;
+			}
+
+			@Override
+			public int hashCode() {
+				int result = color;
+				result = 31 * result + alpha;
+				result = 31 * result + Float.floatToIntBits(strokeWidth);
+				result = 31 * result + style.hashCode();
+				result = 31 * result + Float.floatToIntBits(blurRadius);
+				return result;
+			}
+		}
+	}
+
 }
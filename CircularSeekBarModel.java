@@ -0,0 +1,1207 @@
+/*
+ *
+ * Modifications Copyright 2017 Joseph Budic
+ *
+ * -----------------------------------------------------------
+ *
+ * Unmodified code is Copyright 2013 Matt Joseph
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * -----------------------------------------------------------
+
+ */
+
+package com.wearelast.mpcs;
+
+import java.util.Arrays;
+
+/**
+ * Geometry, progress and touch state of a CircularSeekBar, without any Android dependency.
+ * {@code CircularSeekBar} renders this model; it can also be driven directly on a plain JVM,
+ * for example from benchmarks or tests.
+ *
+ * Coordinates are relative to the center of the circle. Angles are in degrees,
+ * clockwise, relative to 3 o'clock. Not thread safe.
+ */
+public class CircularSeekBarModel {
+
+	/**
+	 * Touch actions accepted by {@code onTouch()}. The values match {@code MotionEvent}'s masked actions.
+	 */
+	public static final int ACTION_DOWN = 0;
+	public static final int ACTION_UP = 1;
+	public static final int ACTION_MOVE = 2;
+	public static final int ACTION_CANCEL = 3;
+	public static final int ACTION_POINTER_DOWN = 5;
+	public static final int ACTION_POINTER_UP = 6;
+
+	/**
+	 * Maximum number of touches that can drag pointers at the same time.
+	 */
+	public static final int MAX_TOUCHES = 10;
+
+	/**
+	 * Number of moved pointers repositioned one by one in the sorted order. When more move between two lookups,
+	 * the whole order is re-sorted instead.
+	 */
+	protected static final int MAX_MOVED_POINTERS = 16;
+
+	/**
+	 * Start angle of the arc.
+	 */
+	protected float mStartAngle = 270f;
+
+	/**
+	 * End angle of the arc.
+	 */
+	protected float mEndAngle = 270f;
+
+	/**
+	 * Length of the arc in degrees. This amount represents the max in degrees.
+	 */
+	protected float mTotalCircleDegrees = 360f;
+
+	/**
+	 * Max value of every pointer.
+	 */
+	protected int mMax = 100;
+
+	/**
+	 * X and Y radius of the circle (or ellipse).
+	 */
+	protected float mCircleWidth;
+	protected float mCircleHeight;
+
+	/**
+	 * Touches closer to the center than {@code mInnerRadius}, or further than {@code mOuterRadius},
+	 * do not start a drag.
+	 */
+	protected float mInnerRadius;
+	protected float mOuterRadius;
+
+	/**
+	 * Radius of a pointer, used to decide whether a touch hits it.
+	 */
+	protected float mPointerRadius;
+
+	/**
+	 * If true, pointers lock at zero and max when dragged past the start or end of the arc.
+	 */
+	protected boolean mLockEnabled = true;
+
+	/**
+	 * If true, a drag keeps moving its pointer when the touch leaves the ring.
+	 */
+	protected boolean mMoveOutsideCircle = false;
+
+	/**
+	 * If true, pointers keep fractional progress. See {@code setHighResolution()}.
+	 */
+	protected boolean mHighResolution = false;
+
+	/**
+	 * Progress, angles, positions and colors of every pointer.
+	 */
+	protected final PointerStore mPointers = new PointerStore();
+
+	/**
+	 * Pointer indices ordered by progress degrees. Rebuilt lazily when {@code mSortedDirty} is set.
+	 */
+	protected int[] mSortedIndices = new int[0];
+
+	/**
+	 * Progress degrees of {@code mSortedIndices}, in the same order. Used for binary searches.
+	 */
+	protected float[] mSortedDegrees = new float[0];
+
+	/**
+	 * Scratch keys for the full sort: the sweep bits in the high word and the pointer index in the low word.
+	 */
+	protected long[] mSortKeys = new long[0];
+
+	/**
+	 * Number of entries in {@code mSortedIndices}.
+	 */
+	protected int mSortedCount = 0;
+
+	/**
+	 * Position of each pointer in {@code mSortedIndices}, indexed by pointer. Valid while {@code mSortedDirty} is clear.
+	 */
+	protected int[] mSortedPositions = new int[0];
+
+	/**
+	 * True when the whole sorted order must be rebuilt, for example after pointers were added or many pointers moved.
+	 */
+	protected boolean mSortedDirty = true;
+
+	/**
+	 * Pointers that moved since the last {@code sortPointers()}, while the rest of the order is still valid.
+	 * Each is moved to its new place in the sorted order on its own.
+	 */
+	protected final int[] mMovedPointers = new int[MAX_MOVED_POINTERS];
+	protected int mMovedCount = 0;
+
+	/**
+	 * True when pointers were added or removed since {@code mSortedIndices} was last rebuilt.
+	 */
+	protected boolean mSortedMembershipDirty = true;
+
+	/**
+	 * Scratch array for {@code findNearestPointerIndex()}, kept to avoid allocating on touch.
+	 */
+	protected final int[] mNearestCandidates = new int[4];
+
+	/**
+	 * Distances of the last touch sample from the start and end of the arc, set by {@code calculateTouchAngle()}.
+	 */
+	protected float cwDistanceFromStart;
+	protected float ccwDistanceFromStart;
+	protected float cwDistanceFromEnd;
+
+	/**
+	 * Distance from the center of the circle to the last touch sample, set by {@code calculateTouchAngle()}.
+	 */
+	protected float mTouchEventRadius;
+
+	/**
+	 * Number of touches currently dragging a pointer. Slots {@code 0..mTouchCount - 1} of the
+	 * {@code mTouch} arrays are in use.
+	 */
+	protected int mTouchCount = 0;
+	protected final int[] mTouchIds = new int[MAX_TOUCHES];
+	protected final int[] mTouchPointers = new int[MAX_TOUCHES];
+	protected final float[] mTouchLastCWDistanceFromStart = new float[MAX_TOUCHES];
+	protected final boolean[] mTouchIsMovingCW = new boolean[MAX_TOUCHES];
+	protected final boolean[] mTouchLockAtStart = new boolean[MAX_TOUCHES];
+	protected final boolean[] mTouchLockAtEnd = new boolean[MAX_TOUCHES];
+
+	/**
+	 * Pointers moved along with a dragged pointer since the last {@code clearChanged()}.
+	 * Each pointer is listed once; {@code PointerStore.changed} marks the listed ones.
+	 */
+	protected int[] mChanged = new int[PointerStore.INITIAL_CAPACITY];
+	protected int mChangedCount = 0;
+
+	/**
+	 * Set the start and end angle of the arc.
+	 * If both are the same, 0.1 is subtracted from the end angle so the arc is a full circle.
+	 * @param startAngle Start angle in degrees.
+	 * @param endAngle End angle in degrees.
+	 */
+	public void setArc(float startAngle, float endAngle) {
+		mStartAngle = ((360f + (startAngle % 360f)) % 360f);
+		mEndAngle = ((360f + (endAngle % 360f)) % 360f);
+		if (mStartAngle == mEndAngle) {
+			mEndAngle = mEndAngle - .1f;
+		}
+		calculateTotalDegrees();
+		mSortedDirty = true;
+	}
+
+	public float getStartAngle() {
+		return mStartAngle;
+	}
+
+	public float getEndAngle() {
+		return mEndAngle;
+	}
+
+	/**
+	 * Get the length of the arc in degrees.
+	 */
+	public float getTotalDegrees() {
+		return mTotalCircleDegrees;
+	}
+
+	/**
+	 * Calculates the total degrees between mStartAngle and mEndAngle, and sets mTotalCircleDegrees
+	 * to this value.
+	 */
+	protected void calculateTotalDegrees() {
+		mTotalCircleDegrees = (360f - (mStartAngle - mEndAngle)) % 360f; // Length of the entire circle/arc
+		if (mTotalCircleDegrees <= 0f) {
+			mTotalCircleDegrees = 360f;
+		}
+	}
+
+	/**
+	 * Set the max of every pointer. Pointer angles are not recalculated; call {@code calculateAll()}.
+	 * @param max The new max, greater than zero.
+	 */
+	public void setMax(int max) {
+		mMax = max;
+	}
+
+	public int getMax() {
+		return mMax;
+	}
+
+	/**
+	 * Set the X and Y radius of the circle.
+	 */
+	public void setRadii(float circleWidth, float circleHeight) {
+		mCircleWidth = circleWidth;
+		mCircleHeight = circleHeight;
+	}
+
+	/**
+	 * Set the band around the ring in which a touch can start a drag.
+	 * @param innerRadius Touches closer to the center are ignored.
+	 * @param outerRadius Touches further from the center are ignored.
+	 */
+	public void setTouchBand(float innerRadius, float outerRadius) {
+		mInnerRadius = innerRadius;
+		mOuterRadius = outerRadius;
+	}
+
+	/**
+	 * Set the radius of a pointer, used to decide whether a touch hits it.
+	 */
+	public void setPointerRadius(float pointerRadius) {
+		mPointerRadius = pointerRadius;
+	}
+
+	public void setLockEnabled(boolean lockEnabled) {
+		mLockEnabled = lockEnabled;
+	}
+
+	public boolean isLockEnabled() {
+		return mLockEnabled;
+	}
+
+	public void setMoveOutsideCircle(boolean moveOutsideCircle) {
+		mMoveOutsideCircle = moveOutsideCircle;
+	}
+
+	public boolean isMoveOutsideCircle() {
+		return mMoveOutsideCircle;
+	}
+
+	/**
+	 * Adds a pointer with zero progress.
+	 * @return The index of the new pointer.
+	 */
+	public int addPointer() {
+		mSortedMembershipDirty = true;
+		mSortedDirty = true;
+		return mPointers.allocate();
+	}
+
+	/**
+	 * Makes room for more pointers without growing the arrays one step at a time.
+	 */
+	public void ensureCapacity(int capacity) {
+		mPointers.ensureCapacity(capacity);
+	}
+
+	/**
+	 * Removes a pointer. Following pointers move down by one index, and a touch dragging the pointer is dropped.
+	 * @param index The index to remove.
+	 */
+	public void removePointer(int index) {
+		for (int slot = mTouchCount - 1; slot >= 0; slot--) {
+			if (mTouchPointers[slot] == index) {
+				removeTouchSlot(slot);
+			} else if (mTouchPointers[slot] > index) {
+				mTouchPointers[slot]--;
+			}
+		}
+		int kept = 0;
+		for (int i = 0; i < mChangedCount; i++) {
+			int changed = mChanged[i];
+			if (changed != index) {
+				mChanged[kept++] = (changed > index) ? changed - 1 : changed;
+			}
+		}
+		mChangedCount = kept;
+		mPointers.remove(index);
+		mSortedMembershipDirty = true;
+		mSortedDirty = true;
+	}
+
+	/**
+	 * Removes every pointer and drops every touch.
+	 */
+	public void clearPointers() {
+		clearChanged();
+		mPointers.clear();
+		mTouchCount = 0;
+		mSortedCount = 0;
+		mSortedMembershipDirty = true;
+		mSortedDirty = true;
+	}
+
+	/**
+	 * Get the number of pointers.
+	 */
+	public int getPointerCount() {
+		return mPointers.size;
+	}
+
+	/**
+	 * Set whether pointers keep fractional progress. When set, dragging stores the exact progress
+	 * of the touch angle and angles are calculated from it, so they are not snapped to whole steps;
+	 * the whole-number progress is still cached next to it. When cleared, every pointer is rounded.
+	 * Angles are not recalculated; call {@code calculateAll()}.
+	 * @param highResolution True to keep fractional progress.
+	 */
+	public void setHighResolution(boolean highResolution) {
+		mHighResolution = highResolution;
+		if (!highResolution) {
+			for (int i = 0; i < mPointers.size; i++) {
+				mPointers.exactProgress[i] = mPointers.progress[i];
+			}
+		}
+	}
+
+	public boolean isHighResolution() {
+		return mHighResolution;
+	}
+
+	/**
+	 * Sets the progress of a pointer. Its angle and position are not recalculated; call {@code calculatePointer()}.
+	 */
+	public void setProgress(int index, int progress) {
+		mPointers.progress[index] = progress;
+		mPointers.exactProgress[index] = progress;
+	}
+
+	/**
+	 * Sets the progress of a pointer, keeping the fraction in high resolution mode.
+	 * Its angle and position are not recalculated; call {@code calculatePointer()}.
+	 */
+	public void setExactProgress(int index, float progress) {
+		int rounded = Math.round(progress);
+		mPointers.progress[index] = rounded;
+		mPointers.exactProgress[index] = mHighResolution ? progress : rounded;
+	}
+
+	/**
+	 * Get the progress of a pointer, rounded to a whole step. This is cached, not derived from the angle.
+	 */
+	public int getProgress(int index) {
+		return mPointers.progress[index];
+	}
+
+	/**
+	 * Get the progress of a pointer, including the fraction in high resolution mode.
+	 */
+	public float getExactProgress(int index) {
+		return mPointers.exactProgress[index];
+	}
+
+	/**
+	 * Converts a sweep, measured from the start angle, to fractional progress.
+	 */
+	public float progressForSweep(float sweep) {
+		return (float)mMax * sweep / mTotalCircleDegrees;
+	}
+
+	/**
+	 * Recalculates the angle, sweep and position of every pointer from its stored progress.
+	 */
+	public void calculateAll() {
+		for (int i = 0; i < mPointers.size; i++) {
+			calculatePointer(i);
+		}
+	}
+
+	/**
+	 * Recalculates the angle, sweep and position of a pointer from its stored progress.
+	 */
+	public void calculatePointer(int index) {
+		calculatePointerAngle(index);
+		calculateProgressDegrees(index);
+		calculatePointerXYPosition(index);
+	}
+
+	/**
+	 * Calculate the pointer position (and the end of the progress arc) in degrees.
+	 * Sets the pointer's angle in {@code mPointers} to that value.
+	 * @param index Index of the pointer.
+	 */
+	public void calculatePointerAngle(int index) {
+		float progressPercent = (mPointers.exactProgress[index] / (float)mMax);
+		mPointers.angle[index] = ((progressPercent * mTotalCircleDegrees) + mStartAngle) % 360f;
+	}
+
+	/**
+	 * Calculate the degrees that the progress represents. Also called the sweep angle.
+	 * Sets the pointer's sweep in {@code mPointers} to that value.
+	 * @param index Index of the pointer.
+	 */
+	public void calculateProgressDegrees(int index) {
+		float progressDegrees = mPointers.angle[index] - mStartAngle; // Verified
+		mPointers.sweep[index] = (progressDegrees < 0 ? 360f + progressDegrees : progressDegrees); // Verified
+		markSortMoved(index);
+	}
+
+	/**
+	 * Calculates the XY position of the pointer directly from its angle:
+	 * the end of the progress arc is simply (width * cos, height * sin).
+	 * @param index Index of the pointer.
+	 */
+	public void calculatePointerXYPosition(int index) {
+		double radians = Math.toRadians(mPointers.angle[index]);
+		mPointers.x[index] = (float) (mCircleWidth * Math.cos(radians));
+		mPointers.y[index] = (float) (mCircleHeight * Math.sin(radians));
+	}
+
+	/**
+	 * Moves a pointer to an angle, and sets its stored progress from it. Its position is not recalculated.
+	 * @param index Index of the pointer.
+	 * @param angle The new angle in degrees.
+	 */
+	public void setProgressBasedOnAngle(int index, float angle) {
+		mPointers.angle[index] = angle;
+		calculateProgressDegrees(index);
+		setExactProgress(index, progressForSweep(mPointers.sweep[index]));
+	}
+
+	/**
+	 * Spreads the stored progress of every pointer evenly between zero and max, in index order.
+	 * Pointers whose progress changes are recorded in the changed list.
+	 */
+	public void distributeProgress() {
+		int size = mPointers.size;
+		for (int i = 0; i < size; i++) {
+			int distributiveProgess = mMax / size * i;
+			if (mPointers.exactProgress[i] != distributiveProgess) {
+				setProgress(i, distributiveProgess);
+				markChanged(i);
+			}
+		}
+	}
+
+	/**
+	 * Moves every pointer ahead of the given one by the same amount the given pointer moved.
+	 * Pointers pushed past zero or max stop there, so their progress always matches their sweep.
+	 * The moved pointers are recorded in the changed list.
+	 * Stored progress is used, so this stays correct for several samples applied before recalculating.
+	 * @param index The pointer that was moved.
+	 * @param priorProgress Its exact progress before the move.
+	 */
+	public void setGangProgress(int index, float priorProgress) {
+		float[] progress = mPointers.exactProgress;
+		float currentProgress = progress[index];
+		float progressDifference = currentProgress - priorProgress;
+		if (progressDifference == 0f) {
+			return;
+		}
+		for (int i = 0; i < mPointers.size; i++) {
+			if (progress[i] > currentProgress) {
+				float target = Math.max(0f, Math.min((float) mMax, progress[i] + progressDifference));
+				if (target != progress[i]) {
+					setExactProgress(i, target);
+					markChanged(i);
+				}
+			}
+		}
+	}
+
+	protected void markChanged(int index) {
+		if (mPointers.changed[index]) {
+			return;
+		}
+		mPointers.changed[index] = true;
+		if (mChangedCount == mChanged.length) {
+			mChanged = Arrays.copyOf(mChanged, mChanged.length * 2);
+		}
+		mChanged[mChangedCount++] = index;
+	}
+
+	/**
+	 * Get the number of pointers moved along with a dragged pointer since the last {@code clearChanged()}.
+	 */
+	public int getChangedCount() {
+		return mChangedCount;
+	}
+
+	/**
+	 * Get the index of a pointer moved along with a dragged pointer.
+	 * @param i Position in the changed list, below {@code getChangedCount()}.
+	 */
+	public int getChangedPointer(int i) {
+		return mChanged[i];
+	}
+
+	public void clearChanged() {
+		for (int i = 0; i < mChangedCount; i++) {
+			mPointers.changed[mChanged[i]] = false;
+		}
+		mChangedCount = 0;
+	}
+
+	/**
+	 * Applies a raw touch sample.
+	 * @param action One of the {@code ACTION_} constants.
+	 * @param touchId Identifies the touch across samples, like a {@code MotionEvent} pointer ID.
+	 * @param x X coordinate, relative to the center of the circle.
+	 * @param y Y coordinate, relative to the center of the circle.
+	 * @return The index of the pointer that was grabbed, moved or released, or -1 if none.
+	 */
+	public int onTouch(int action, int touchId, float x, float y) {
+		switch (action) {
+		case ACTION_DOWN:
+		case ACTION_POINTER_DOWN:
+			return touchDown(touchId, x, y);
+		case ACTION_MOVE:
+			int slot = findTouchSlot(touchId);
+			if (slot >= 0 && touchMove(slot, x, y)) {
+				return mTouchPointers[slot];
+			}
+			return -1;
+		case ACTION_UP:
+		case ACTION_POINTER_UP:
+			return touchUp(touchId);
+		case ACTION_CANCEL:
+			mTouchCount = 0;
+			return -1;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * Starts a drag if the touch hits a pointer that is not already being dragged.
+	 * @return The index of the grabbed pointer, or -1 if none.
+	 */
+	public int touchDown(int touchId, float x, float y) {
+		if (mTouchCount >= MAX_TOUCHES) {
+			return -1;
+		}
+		float touchAngle = calculateTouchAngle(x, y);
+		int index = calculatePointerTouched(touchAngle, mTouchEventRadius);
+		if (index < 0 || findTouchSlotForPointer(index) >= 0) {
+			return -1;
+		}
+		int slot = mTouchCount++;
+		mTouchIds[slot] = touchId;
+		mTouchPointers[slot] = index;
+		mTouchLastCWDistanceFromStart[slot] = cwDistanceFromStart;
+		mTouchIsMovingCW[slot] = true;
+		mTouchLockAtStart[slot] = false;
+		mTouchLockAtEnd[slot] = false;
+		return index;
+	}
+
+	/**
+	 * Applies one move sample to the pointer dragged from a slot.
+	 * @return True if the sample was applied and the pointer's listener should be notified.
+	 */
+	public boolean touchMove(int slot, float x, float y) {
+		float touchAngle = calculateTouchAngle(x, y);
+		return moveTouchedPointer(slot, touchAngle, mTouchEventRadius);
+	}
+
+	/**
+	 * Ends a drag.
+	 * @return The index of the released pointer, or -1 if the touch was not dragging one.
+	 */
+	public int touchUp(int touchId) {
+		int slot = findTouchSlot(touchId);
+		if (slot < 0) {
+			return -1;
+		}
+		int index = mTouchPointers[slot];
+		removeTouchSlot(slot);
+		return index;
+	}
+
+	/**
+	 * Get the number of touches currently dragging a pointer.
+	 */
+	public int getTouchCount() {
+		return mTouchCount;
+	}
+
+	public int getTouchId(int slot) {
+		return mTouchIds[slot];
+	}
+
+	/**
+	 * Get the index of the pointer dragged from a slot.
+	 */
+	public int getTouchPointer(int slot) {
+		return mTouchPointers[slot];
+	}
+
+	/**
+	 * Finds the slot tracking a touch.
+	 * @return The slot, or -1 if the touch is not tracked.
+	 */
+	public int findTouchSlot(int touchId) {
+		for (int slot = 0; slot < mTouchCount; slot++) {
+			if (mTouchIds[slot] == touchId) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the slot of the touch dragging a pointer.
+	 * @return The slot, or -1 if no touch is dragging the pointer.
+	 */
+	public int findTouchSlotForPointer(int index) {
+		for (int slot = 0; slot < mTouchCount; slot++) {
+			if (mTouchPointers[slot] == index) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Frees a slot by moving the last slot into it, so slots stay contiguous.
+	 */
+	public void removeTouchSlot(int slot) {
+		int last = --mTouchCount;
+		mTouchIds[slot] = mTouchIds[last];
+		mTouchPointers[slot] = mTouchPointers[last];
+		mTouchLastCWDistanceFromStart[slot] = mTouchLastCWDistanceFromStart[last];
+		mTouchIsMovingCW[slot] = mTouchIsMovingCW[last];
+		mTouchLockAtStart[slot] = mTouchLockAtStart[last];
+		mTouchLockAtEnd[slot] = mTouchLockAtEnd[last];
+	}
+
+	/**
+	 * Converts a touch position to an angle, and updates the touch distance fields from it.
+	 * Also sets {@code mTouchEventRadius}.
+	 * @param x The X coordinate of the touch, relative to the center of the circle.
+	 * @param y The Y coordinate of the touch, relative to the center of the circle.
+	 * @return The touch angle in degrees (clockwise, relative to 3 o'clock).
+	 */
+	public float calculateTouchAngle(float x, float y) {
+		// Get the distance from the center of the circle in terms of a radius
+		mTouchEventRadius = (float) Math.sqrt((x * x) + (y * y));
+
+		float touchAngle;
+		touchAngle = (float) ((java.lang.Math.atan2(y, x) / Math.PI * 180) % 360); // Verified
+		touchAngle = (touchAngle < 0 ? 360 + touchAngle : touchAngle); // Verified
+
+		cwDistanceFromStart = touchAngle - mStartAngle; // Verified
+		cwDistanceFromStart = (cwDistanceFromStart < 0 ? 360f + cwDistanceFromStart : cwDistanceFromStart); // Verified
+		ccwDistanceFromStart = 360f - cwDistanceFromStart; // Verified
+
+		cwDistanceFromEnd = touchAngle - mEndAngle; // Verified
+		cwDistanceFromEnd = (cwDistanceFromEnd < 0 ? 360f + cwDistanceFromEnd : cwDistanceFromEnd); // Verified
+
+		return touchAngle;
+	}
+
+	/**
+	 * Get the distance from the center of the circle to the last touch sample.
+	 */
+	public float getTouchEventRadius() {
+		return mTouchEventRadius;
+	}
+
+	/**
+	 * Applies one move sample to the pointer dragged from a slot: runs the lock and wrap checks,
+	 * updates its angle and moves the pointers ahead of it. {@code calculateTouchAngle()} must have
+	 * been called for this sample first.
+	 * @return True if the sample was applied and the pointer's listener should be notified.
+	 */
+	protected boolean moveTouchedPointer(int slot, float touchAngle, float touchEventRadius) {
+		float lastCWDistanceFromStart = mTouchLastCWDistanceFromStart[slot];
+		boolean isMovingCW = mTouchIsMovingCW[slot];
+		boolean lockAtStart = mTouchLockAtStart[slot];
+		boolean lockAtEnd = mTouchLockAtEnd[slot];
+
+		if (lastCWDistanceFromStart < cwDistanceFromStart) {
+			if ((cwDistanceFromStart - lastCWDistanceFromStart) > 180f && !isMovingCW) {
+				lockAtStart = true;
+				lockAtEnd = false;
+			} else {
+				isMovingCW = true;
+			}
+		} else {
+			if ((lastCWDistanceFromStart - cwDistanceFromStart) > 180f && isMovingCW) {
+				lockAtEnd = true;
+				lockAtStart = false;
+			} else {
+				isMovingCW = false;
+			}
+		}
+
+		if (lockAtStart && isMovingCW) {
+			lockAtStart = false;
+		}
+		if (lockAtEnd && !isMovingCW) {
+			lockAtEnd = false;
+		}
+		if (lockAtStart && !isMovingCW && (ccwDistanceFromStart > 90)) {
+			lockAtStart = false;
+		}
+		if (lockAtEnd && isMovingCW && (cwDistanceFromEnd > 90)) {
+			lockAtEnd = false;
+		}
+		// Fix for passing the end of a semi-circle quickly
+		if (!lockAtEnd && cwDistanceFromStart > mTotalCircleDegrees && isMovingCW && lastCWDistanceFromStart < mTotalCircleDegrees) {
+			lockAtEnd = true;
+		}
+
+		mTouchIsMovingCW[slot] = isMovingCW;
+		mTouchLockAtStart[slot] = lockAtStart;
+		mTouchLockAtEnd[slot] = lockAtEnd;
+
+		if ((lockAtStart || lockAtEnd) && mLockEnabled) {
+			// Locked at zero or max: the pointer stays where it is
+		} else if ((mMoveOutsideCircle) || (touchEventRadius <= mOuterRadius)) {
+			if (!(cwDistanceFromStart > mTotalCircleDegrees)) {
+				int index = mTouchPointers[slot];
+				float priorProgress = mPointers.exactProgress[index];
+				setProgressBasedOnAngle(index, touchAngle);
+				setGangProgress(index, priorProgress);
+			}
+		} else {
+			return false;
+		}
+
+		mTouchLastCWDistanceFromStart[slot] = cwDistanceFromStart;
+		return true;
+	}
+
+	/**
+	 * Finds the pointer under the touch, if the touch is on the ring and within a pointer's radius.
+	 * When several pointers are under the touch, the one added first wins, as in a scan of the pointers in order.
+	 * Uses a binary search over {@code mSortedDegrees}, so this is O(log n) in the number of pointers,
+	 * plus one step per pointer under the touch.
+	 * {@code calculateTouchAngle()} must have been called for this sample first.
+	 * @return The index of the touched pointer, or -1 if no pointer was touched.
+	 */
+	public int calculatePointerTouched(float touchAngle, float touchEventRadius) {
+		if ((touchEventRadius < mInnerRadius + 3) || (touchEventRadius > mOuterRadius + 3)) { // If the user is not touching near the circle
+			return -1;
+		}
+
+		sortPointers();
+		int nearest = findNearestPointerIndex(cwDistanceFromStart);
+		if (nearest < 0) {
+			return -1;
+		}
+		float pointerRadiusDegrees = (float) ((mPointerRadius * 180) / (Math.PI * Math.max(mCircleHeight, mCircleWidth)));
+		float hitDegrees = pointerRadiusDegrees + 3;
+		int touched = mSortedIndices[nearest];
+		// This is for if the first touch is on the actual pointer.
+		if (!isPointerUnderTouch(touched, touchAngle, hitDegrees)) {
+			return -1;
+		}
+		// The pointers under the touch are next to the nearest one in sorted order, possibly across the wrap
+		int count = mSortedCount;
+		for (int step = 1; step < count; step++) {
+			int index = mSortedIndices[(nearest + step) % count];
+			if (!isPointerUnderTouch(index, touchAngle, hitDegrees)) {
+				break;
+			}
+			touched = Math.min(touched, index);
+		}
+		for (int step = 1; step < count; step++) {
+			int index = mSortedIndices[(nearest - step + count) % count];
+			if (!isPointerUnderTouch(index, touchAngle, hitDegrees)) {
+				break;
+			}
+			touched = Math.min(touched, index);
+		}
+		return touched;
+	}
+
+	/**
+	 * Get whether a touch is within the given distance of a pointer, clockwise or counter-clockwise.
+	 * @param index Index of the pointer.
+	 * @param touchAngle The touch angle in degrees.
+	 * @param hitDegrees The greatest distance, in degrees, that counts as touching the pointer.
+	 */
+	protected boolean isPointerUnderTouch(int index, float touchAngle, float hitDegrees) {
+		float cwDistanceFromPointer = touchAngle - mPointers.angle[index];
+		cwDistanceFromPointer = (cwDistanceFromPointer < 0 ? 360f + cwDistanceFromPointer : cwDistanceFromPointer);
+		float ccwDistanceFromPointer = 360f - cwDistanceFromPointer;
+		return (cwDistanceFromPointer <= hitDegrees) || (ccwDistanceFromPointer <= hitDegrees);
+	}
+
+	/**
+	 * Records that a pointer's sweep changed, so its place in the sorted order must be updated.
+	 * @param index Index of the pointer.
+	 */
+	protected void markSortMoved(int index) {
+		if (mSortedDirty || (mMovedCount > 0 && mMovedPointers[mMovedCount - 1] == index)) {
+			return;
+		}
+		if (mMovedCount == MAX_MOVED_POINTERS) {
+			mMovedCount = 0;
+			mSortedDirty = true;
+			return;
+		}
+		mMovedPointers[mMovedCount++] = index;
+	}
+
+	/**
+	 * Sorts {@code mSortedIndices} and {@code mSortedDegrees} by progress degrees if any pointer has moved.
+	 * When only a few pointers moved, each is taken out of the order and put back at its new place,
+	 * which is a binary search and an array copy over the pointers it passed.
+	 * After pointers are added or removed this is a full sort of packed primitive keys; otherwise a full
+	 * insertion sort, since the order is nearly sorted already.
+	 */
+	public void sortPointers() {
+		if (!mSortedDirty) {
+			for (int i = 0; i < mMovedCount; i++) {
+				repositionSorted(mMovedPointers[i]);
+			}
+			mMovedCount = 0;
+			return;
+		}
+		int count = mPointers.size;
+		float[] sweep = mPointers.sweep;
+		if (mSortedIndices.length < count) {
+			int capacity = Math.max(count, mSortedIndices.length * 2);
+			mSortedIndices = Arrays.copyOf(mSortedIndices, capacity);
+			mSortedDegrees = Arrays.copyOf(mSortedDegrees, capacity);
+			mSortedPositions = Arrays.copyOf(mSortedPositions, capacity);
+		}
+		if (mSortedMembershipDirty || mSortedCount != count) {
+			// Pointers were added or removed, so the order may be arbitrary; do a full sort.
+			// Sweeps are never negative, so their bits order the same way as their values.
+			if (mSortKeys.length < count) {
+				mSortKeys = new long[mSortedIndices.length];
+			}
+			for (int i = 0; i < count; i++) {
+				mSortKeys[i] = ((long) Float.floatToIntBits(sweep[i] + 0f) << 32) | i;
+			}
+			Arrays.sort(mSortKeys, 0, count);
+			for (int i = 0; i < count; i++) {
+				mSortedIndices[i] = (int) mSortKeys[i];
+			}
+			mSortedCount = count;
+			mSortedMembershipDirty = false;
+		}
+		int[] sorted = mSortedIndices;
+		for (int i = 1; i < count; i++) {
+			int key = sorted[i];
+			float keyDegrees = sweep[key];
+			int j = i - 1;
+			while (j >= 0 && sweep[sorted[j]] > keyDegrees) {
+				sorted[j + 1] = sorted[j];
+				j--;
+			}
+			sorted[j + 1] = key;
+		}
+		for (int i = 0; i < count; i++) {
+			mSortedDegrees[i] = sweep[sorted[i]];
+			mSortedPositions[sorted[i]] = i;
+		}
+		mMovedCount = 0;
+		mSortedDirty = false;
+	}
+
+	/**
+	 * Moves one pointer to its place in the sorted order, assuming every other pointer is in order.
+	 * @param index Index of the pointer that moved.
+	 */
+	protected void repositionSorted(int index) {
+		int[] sorted = mSortedIndices;
+		float[] sortedDegrees = mSortedDegrees;
+		int from = mSortedPositions[index];
+		float degrees = mPointers.sweep[index];
+		int to = from;
+		if (from > 0 && sortedDegrees[from - 1] > degrees) {
+			// Moved down: shift the pointers it passed up by one
+			to = searchDegrees(degrees, 0, from, true);
+			System.arraycopy(sorted, to, sorted, to + 1, from - to);
+			System.arraycopy(sortedDegrees, to, sortedDegrees, to + 1, from - to);
+			for (int i = to + 1; i <= from; i++) {
+				mSortedPositions[sorted[i]] = i;
+			}
+		} else if (from < mSortedCount - 1 && sortedDegrees[from + 1] < degrees) {
+			// Moved up: shift the pointers it passed down by one
+			to = searchDegrees(degrees, from + 1, mSortedCount, false) - 1;
+			System.arraycopy(sorted, from + 1, sorted, from, to - from);
+			System.arraycopy(sortedDegrees, from + 1, sortedDegrees, from, to - from);
+			for (int i = from; i < to; i++) {
+				mSortedPositions[sorted[i]] = i;
+			}
+		}
+		sorted[to] = index;
+		sortedDegrees[to] = degrees;
+		mSortedPositions[index] = to;
+	}
+
+	/**
+	 * Marks the sorted order stale, for example after progress was written directly to the store.
+	 */
+	public void invalidateSort() {
+		mSortedDirty = true;
+	}
+
+	/**
+	 * Get the number of pointers in sorted order. {@code sortPointers()} must have been called first.
+	 */
+	public int getSortedCount() {
+		return mSortedCount;
+	}
+
+	/**
+	 * Get the index of the pointer at a position in sorted order. {@code sortPointers()} must have been called first.
+	 */
+	public int getSortedPointer(int position) {
+		return mSortedIndices[position];
+	}
+
+	/**
+	 * Finds the pointer closest to the given position, wrapping around the full circle.
+	 * {@code sortPointers()} must have been called first.
+	 * @param degrees Clockwise distance from {@code mStartAngle}, in degrees.
+	 * @return Position in sorted order, or -1 if there are no pointers.
+	 */
+	protected int findNearestPointerIndex(float degrees) {
+		int count = mSortedCount;
+		if (count == 0) {
+			return -1;
+		}
+		int high = lowerBoundDegrees(degrees);
+		int low = high - 1;
+		// Only the two neighbors of the insertion point, and the two ends for wrap-around, can be nearest
+		int nearest = -1;
+		float nearestDistance = Float.MAX_VALUE;
+		int[] candidates = mNearestCandidates;
+		candidates[0] = low;
+		candidates[1] = high;
+		candidates[2] = 0;
+		candidates[3] = count - 1;
+		for (int i = 0; i < candidates.length; i++) {
+			int candidate = candidates[i];
+			if (candidate < 0 || candidate >= count) {
+				continue;
+			}
+			float distance = Math.abs(degrees - mSortedDegrees[candidate]) % 360f;
+			distance = Math.min(distance, 360f - distance);
+			if (distance < nearestDistance) {
+				nearestDistance = distance;
+				nearest = candidate;
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * Binary search for the first position in {@code mSortedDegrees} that is not less than {@code degrees}.
+	 * @param degrees Clockwise distance from {@code mStartAngle}, in degrees.
+	 * @return The insertion position, between 0 and the number of pointers.
+	 */
+	protected int lowerBoundDegrees(float degrees) {
+		return searchDegrees(degrees, 0, mSortedCount, false);
+	}
+
+	/**
+	 * Binary search for the first position in {@code mSortedDegrees} that is greater than {@code degrees}.
+	 * @param degrees Clockwise distance from {@code mStartAngle}, in degrees.
+	 * @return The insertion position, between 0 and the number of pointers.
+	 */
+	protected int upperBoundDegrees(float degrees) {
+		return searchDegrees(degrees, 0, mSortedCount, true);
+	}
+
+	/**
+	 * Binary search over part of {@code mSortedDegrees}.
+	 * @param degrees The value to search for.
+	 * @param low First position searched.
+	 * @param high Position after the last one searched.
+	 * @param upper False for the first position not less than {@code degrees}, true for the first position greater than it.
+	 * @return The insertion position, between {@code low} and {@code high}.
+	 */
+	protected int searchDegrees(float degrees, int low, int high, boolean upper) {
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (upper ? mSortedDegrees[mid] <= degrees : mSortedDegrees[mid] < degrees) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Get the progress of a pointer relative to its nearest lower neighbor.
+	 * @param index Index of the pointer to measure.
+	 * @return The difference between the pointer's progress and the next lower progress (or 0).
+	 */
+	public int getRelativeProgress(int index) {
+		int lower = getLowerNeighbor(index);
+		int nearestNeighbor = (lower < 0) ? 0 : getProgress(lower);
+		return getProgress(index) - nearestNeighbor;
+	}
+
+	/**
+	 * Get the pointer with the greatest progress strictly less than the given pointer's progress.
+	 * O(log n) once the sorted order is up to date.
+	 * @return The index of the lower neighbor, or -1 if there is none.
+	 */
+	public int getLowerNeighbor(int index) {
+		sortPointers();
+		int progress = getProgress(index);
+		int position = lowerBoundDegrees(mPointers.sweep[index]) - 1;
+		while (position >= 0 && getProgress(mSortedIndices[position]) >= progress) {
+			position--;
+		}
+		return (position >= 0) ? mSortedIndices[position] : -1;
+	}
+
+	/**
+	 * Get the pointer with the smallest progress strictly greater than the given pointer's progress.
+	 * O(log n) once the sorted order is up to date.
+	 * @return The index of the upper neighbor, or -1 if there is none.
+	 */
+	public int getUpperNeighbor(int index) {
+		sortPointers();
+		int progress = getProgress(index);
+		int position = upperBoundDegrees(mPointers.sweep[index]);
+		while (position < mSortedCount && getProgress(mSortedIndices[position]) <= progress) {
+			position++;
+		}
+		return (position < mSortedCount) ? mSortedIndices[position] : -1;
+	}
+
+	/**
+	 * Fills {@code out} with the relative progress of every pointer, in ascending order of progress.
+	 * Each value matches {@code getRelativeProgress()} for that pointer. Runs in one pass and does not allocate.
+	 * @param out Array to fill. If it is shorter than the number of pointers, only the first values are written.
+	 * @return The number of pointers.
+	 */
+	public int getSegments(int[] out) {
+		sortPointers();
+		int count = mSortedCount;
+		int lower = 0;
+		int level = 0;
+		for (int i = 0; i < count && i < out.length; i++) {
+			int progress = getProgress(mSortedIndices[i]);
+			if (progress > level) {
+				lower = level;
+				level = progress;
+			}
+			out[i] = progress - lower;
+		}
+		return count;
+	}
+
+	/**
+	 * Struct-of-arrays storage for pointer state. Each pointer owns one index across all arrays,
+	 * so the calculation loops walk primitive arrays instead of objects.
+	 */
+	protected static class PointerStore {
+
+		protected static final int INITIAL_CAPACITY = 8;
+
+		/**
+		 * Number of pointers stored.
+		 */
+		int size = 0;
+
+		/**
+		 * Progress of each pointer, rounded to a whole step.
+		 */
+		int[] progress = new int[INITIAL_CAPACITY];
+
+		/**
+		 * Progress of each pointer that angles are calculated from. Only has a fraction in high resolution mode.
+		 */
+		float[] exactProgress = new float[INITIAL_CAPACITY];
+
+		/**
+		 * Angle of each pointer (and the end of its progress arc) in degrees.
+		 */
+		float[] angle = new float[INITIAL_CAPACITY];
+
+		/**
+		 * Sweep of each progress arc in degrees, measured from {@code mStartAngle}.
+		 */
+		float[] sweep = new float[INITIAL_CAPACITY];
+
+		/**
+		 * Position of each pointer, relative to the center of the circle.
+		 */
+		float[] x = new float[INITIAL_CAPACITY];
+		float[] y = new float[INITIAL_CAPACITY];
+
+		/**
+		 * Custom colors of each pointer, as ARGB. Only used by the renderer when a pointer has custom colors.
+		 */
+		int[] pointerColor = new int[INITIAL_CAPACITY];
+		int[] progressColor = new int[INITIAL_CAPACITY];
+
+		/**
+		 * True while a pointer is in the model's changed list.
+		 */
+		boolean[] changed = new boolean[INITIAL_CAPACITY];
+
+		/**
+		 * Adds a zeroed entry at the end.
+		 * @return The index of the new entry.
+		 */
+		int allocate() {
+			ensureCapacity(size + 1);
+			int index = size++;
+			progress[index] = 0;
+			exactProgress[index] = 0f;
+			angle[index] = 0f;
+			sweep[index] = 0f;
+			x[index] = 0f;
+			y[index] = 0f;
+			pointerColor[index] = 0;
+			progressColor[index] = 0;
+			changed[index] = false;
+			return index;
+		}
+
+		void ensureCapacity(int capacity) {
+			if (capacity <= progress.length) {
+				return;
+			}
+			int newCapacity = Math.max(capacity, progress.length * 2);
+			progress = Arrays.copyOf(progress, newCapacity);
+			exactProgress = Arrays.copyOf(exactProgress, newCapacity);
+			angle = Arrays.copyOf(angle, newCapacity);
+			sweep = Arrays.copyOf(sweep, newCapacity);
+			x = Arrays.copyOf(x, newCapacity);
+			y = Arrays.copyOf(y, newCapacity);
+			pointerColor = Arrays.copyOf(pointerColor, newCapacity);
+			progressColor = Arrays.copyOf(progressColor, newCapacity);
+			changed = Arrays.copyOf(changed, newCapacity);
+		}
+
+		/**
+		 * Removes an entry, shifting the following entries down by one.
+		 * @param index The index to remove.
+		 */
+		void remove(int index) {
+			int moved = size - index - 1;
+			if (moved > 0) {
+				System.arraycopy(progress, index + 1, progress, index, moved);
+				System.arraycopy(exactProgress, index + 1, exactProgress, index, moved);
+				System.arraycopy(angle, index + 1, angle, index, moved);
+				System.arraycopy(sweep, index + 1, sweep, index, moved);
+				System.arraycopy(x, index + 1, x, index, moved);
+				System.arraycopy(y, index + 1, y, index, moved);
+				System.arraycopy(pointerColor, index + 1, pointerColor, index, moved);
+				System.arraycopy(progressColor, index + 1, progressColor, index, moved);
+				System.arraycopy(changed, index + 1, changed, index, moved);
+			}
+			size--;
+		}
+
+		void clear() {
+			size = 0;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ *
+ * Modifications Copyright 2017 Joseph Budic
+ *
+ * -----------------------------------------------------------
+ *
+ * Unmodified code is Copyright 2013 Matt Joseph
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * -----------------------------------------------------------
+
+ */
+
+package com.wearelast.mpcs;
+
+import java.util.Arrays;
+
+/**
+ * The progress changes a ProgressStream delivers at once: one entry per changed pointer.
+ *
+ * A stream reuses its batch for every delivery, so the values are only valid during
+ * {@code OnProgressBatchListener.onProgressBatch()}. Copy them to keep them.
+ */
+public class ProgressBatch {
+
+	protected int mCount;
+	protected int[] mPointers = new int[0];
+	protected float[] mProgress = new float[0];
+	protected boolean[] mFromUser = new boolean[0];
+	protected long mFrameTimeNanos;
+
+	void clear(long frameTimeNanos) {
+		mCount = 0;
+		mFrameTimeNanos = frameTimeNanos;
+	}
+
+	void add(int pointer, float progress, boolean fromUser) {
+		if (mCount == mPointers.length) {
+			int capacity = Math.max(4, mCount * 2);
+			mPointers = Arrays.copyOf(mPointers, capacity);
+			mProgress = Arrays.copyOf(mProgress, capacity);
+			mFromUser = Arrays.copyOf(mFromUser, capacity);
+		}
+		mPointers[mCount] = pointer;
+		mProgress[mCount] = progress;
+		mFromUser[mCount] = fromUser;
+		mCount++;
+	}
+
+	/**
+	 * Get the number of entries in the batch.
+	 */
+	public int getCount() {
+		return mCount;
+	}
+
+	/**
+	 * Get the pointer an entry belongs to.
+	 * @param i The entry, below {@code getCount()}.
+	 * @return The pointer's index, in the order pointers were added to the seekbar.
+	 */
+	public int getPointer(int i) {
+		return mPointers[i];
+	}
+
+	/**
+	 * Get the progress of an entry, rounded to a whole step.
+	 * @param i The entry, below {@code getCount()}.
+	 */
+	public int getProgress(int i) {
+		return Math.round(mProgress[i]);
+	}
+
+	/**
+	 * Get the progress of an entry, with a fractional part when high-resolution progress is enabled.
+	 * @param i The entry, below {@code getCount()}.
+	 */
+	public float getExactProgress(int i) {
+		return mProgress[i];
+	}
+
+	/**
+	 * Get whether the last change of an entry's pointer was made by the user.
+	 * @param i The entry, below {@code getCount()}.
+	 */
+	public boolean isFromUser(int i) {
+		return mFromUser[i];
+	}
+
+	/**
+	 * Get the frame time the batch was delivered on, on the {@code System.nanoTime()} time base.
+	 */
+	public long getFrameTimeNanos() {
+		return mFrameTimeNanos;
+	}
+}
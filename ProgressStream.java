@@ -0,0 +1,335 @@
+/*
+ *
+ * Modifications Copyright 2017 Joseph Budic
+ *
+ * -----------------------------------------------------------
+ *
+ * Unmodified code is Copyright 2013 Matt Joseph
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * -----------------------------------------------------------
+
+ */
+
+package com.wearelast.mpcs;
+
+import android.view.Choreographer;
+
+import java.util.Arrays;
+
+/**
+ * A subscription to the progress changes of a CircularSeekBar, opened with {@code CircularSeekBar.openProgressStream()}.
+ *
+ * Changes are not delivered as they happen: the stream keeps the latest progress of each changed pointer
+ * and delivers them together as a ProgressBatch on a later frame, at most once per frame. On top of that:
+ * a throttle interval delivers at most once per interval, a settle interval waits until no pointer has changed
+ * for that long, and distinct-until-changed drops pointers whose progress equals the one last delivered for them.
+ *
+ * All methods must be called on the UI thread. Delivering a batch allocates nothing once the
+ * stream's arrays have grown to the number of pointers.
+ */
+public class ProgressStream {
+
+	protected final CircularSeekBar mSeekBar;
+	protected final CircularSeekBar.OnProgressBatchListener mListener;
+
+	/**
+	 * Minimum time between two deliveries, or 0 to deliver on every frame with changes.
+	 */
+	protected long mThrottleNanos = 0;
+
+	/**
+	 * Time without any change before a delivery, or 0 to not wait for the pointers to settle.
+	 */
+	protected long mSettleNanos = 0;
+
+	/**
+	 * If true, a pointer is only delivered when its progress differs from the one last delivered for it.
+	 */
+	protected boolean mDistinctUntilChanged = false;
+
+	/**
+	 * Latest undelivered change of each pointer, indexed by pointer.
+	 */
+	protected boolean[] mPending = new boolean[0];
+	protected float[] mPendingProgress = new float[0];
+	protected boolean[] mPendingFromUser = new boolean[0];
+
+	/**
+	 * Pointers with an undelivered change, in the order they first changed.
+	 */
+	protected int[] mPendingOrder = new int[0];
+	protected int mPendingCount = 0;
+
+	/**
+	 * Progress last delivered for each pointer, indexed by pointer.
+	 */
+	protected boolean[] mDelivered = new boolean[0];
+	protected float[] mDeliveredProgress = new float[0];
+
+	protected long mLastChangeNanos;
+
+	/**
+	 * Frame time of the last delivery, or -1 before the first one.
+	 */
+	protected long mLastDeliveryNanos = -1;
+
+	protected final ProgressBatch mBatch = new ProgressBatch();
+
+	protected boolean mClosed = false;
+
+	/**
+	 * True while the seekbar is detached from its window. Changes are still recorded, but not delivered.
+	 */
+	protected boolean mPaused = false;
+
+	/**
+	 * True while {@code mFrameCallback} is posted to the {@code Choreographer}.
+	 */
+	protected boolean mFrameCallbackPosted = false;
+
+	/**
+	 * Delivers the pending changes, or posts itself again until the throttle and settle intervals have passed.
+	 */
+	protected final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			mFrameCallbackPosted = false;
+			if (mClosed || mPendingCount == 0) {
+				return;
+			}
+			long wait = 0;
+			if (mSettleNanos > 0) {
+				wait = Math.max(wait, mLastChangeNanos + mSettleNanos - frameTimeNanos);
+			}
+			if (mThrottleNanos > 0 && mLastDeliveryNanos >= 0) {
+				wait = Math.max(wait, mLastDeliveryNanos + mThrottleNanos - frameTimeNanos);
+			}
+			if (wait > 0) {
+				scheduleFrame(wait);
+				return;
+			}
+			deliver(frameTimeNanos);
+		}
+	};
+
+	ProgressStream(CircularSeekBar seekBar, CircularSeekBar.OnProgressBatchListener listener) {
+		mSeekBar = seekBar;
+		mListener = listener;
+	}
+
+	/**
+	 * Records a change of a pointer's progress, replacing any undelivered change of the same pointer.
+	 * @param pointer The pointer's index.
+	 * @param progress The pointer's new exact progress.
+	 * @param fromUser True if the user made the change.
+	 */
+	void onProgressChanged(int pointer, float progress, boolean fromUser) {
+		if (mClosed) {
+			return;
+		}
+		ensureCapacity(pointer + 1);
+		if (!mPending[pointer]) {
+			mPending[pointer] = true;
+			mPendingOrder[mPendingCount++] = pointer;
+		}
+		mPendingProgress[pointer] = progress;
+		mPendingFromUser[pointer] = fromUser;
+		mLastChangeNanos = System.nanoTime();
+		scheduleFrame(0);
+	}
+
+	/**
+	 * Shifts the per-pointer state down after a pointer was removed, and drops its undelivered change.
+	 * @param pointer The removed pointer's index.
+	 */
+	void onPointerRemoved(int pointer) {
+		if (pointer >= mPending.length) {
+			return;
+		}
+		int count = 0;
+		for (int i = 0; i < mPendingCount; i++) {
+			int p = mPendingOrder[i];
+			if (p != pointer) {
+				mPendingOrder[count++] = (p > pointer) ? p - 1 : p;
+			}
+		}
+		mPendingCount = count;
+		int moved = mPending.length - pointer - 1;
+		System.arraycopy(mPending, pointer + 1, mPending, pointer, moved);
+		System.arraycopy(mPendingProgress, pointer + 1, mPendingProgress, pointer, moved);
+		System.arraycopy(mPendingFromUser, pointer + 1, mPendingFromUser, pointer, moved);
+		System.arraycopy(mDelivered, pointer + 1, mDelivered, pointer, moved);
+		System.arraycopy(mDeliveredProgress, pointer + 1, mDeliveredProgress, pointer, moved);
+		mPending[mPending.length - 1] = false;
+		mDelivered[mDelivered.length - 1] = false;
+	}
+
+	/**
+	 * Drops all undelivered changes and the last delivered progress of every pointer.
+	 */
+	void onPointersCleared() {
+		Arrays.fill(mPending, false);
+		Arrays.fill(mDelivered, false);
+		mPendingCount = 0;
+	}
+
+	protected void ensureCapacity(int capacity) {
+		if (capacity <= mPending.length) {
+			return;
+		}
+		capacity = Math.max(capacity, mPending.length * 2);
+		mPending = Arrays.copyOf(mPending, capacity);
+		mPendingProgress = Arrays.copyOf(mPendingProgress, capacity);
+		mPendingFromUser = Arrays.copyOf(mPendingFromUser, capacity);
+		mPendingOrder = Arrays.copyOf(mPendingOrder, capacity);
+		mDelivered = Arrays.copyOf(mDelivered, capacity);
+		mDeliveredProgress = Arrays.copyOf(mDeliveredProgress, capacity);
+	}
+
+	/**
+	 * Posts {@code mFrameCallback} if it is not posted already.
+	 * @param delayNanos Minimum time before the callback runs.
+	 */
+	protected void scheduleFrame(long delayNanos) {
+		if (mFrameCallbackPosted) {
+			return;
+		}
+		if (mPaused) {
+			return;
+		}
+		mFrameCallbackPosted = true;
+		if (delayNanos > 0) {
+			// Round up, so the callback does not run just before the interval has passed
+			mSeekBar.getUiChoreographer().postFrameCallbackDelayed(mFrameCallback, (delayNanos + 999999L) / 1000000L);
+		} else {
+			mSeekBar.getUiChoreographer().postFrameCallback(mFrameCallback);
+		}
+	}
+
+	/**
+	 * Moves the pending changes into the batch and sends it to the listener.
+	 * @param frameTimeNanos Time of the frame delivering the batch.
+	 */
+	protected void deliver(long frameTimeNanos) {
+		mBatch.clear(frameTimeNanos);
+		for (int i = 0; i < mPendingCount; i++) {
+			int p = mPendingOrder[i];
+			mPending[p] = false;
+			float progress = mPendingProgress[p];
+			if (mDistinctUntilChanged && mDelivered[p] && mDeliveredProgress[p] == progress) {
+				continue;
+			}
+			mDelivered[p] = true;
+			mDeliveredProgress[p] = progress;
+			mBatch.add(p, progress, mPendingFromUser[p]);
+		}
+		mPendingCount = 0;
+		if (mBatch.getCount() > 0) {
+			mLastDeliveryNanos = frameTimeNanos;
+			mListener.onProgressBatch(mSeekBar, mBatch);
+		}
+	}
+
+	/**
+	 * Stops the stream. Undelivered changes are dropped and the listener is not called again.
+	 */
+	void close() {
+		mClosed = true;
+		mPendingCount = 0;
+		removeFrameCallback();
+	}
+
+	/**
+	 * Stops delivering while the seekbar is detached, so the {@code Choreographer} does not hold on to it.
+	 * Undelivered changes are kept until {@code resume()}.
+	 */
+	void pause() {
+		mPaused = true;
+		removeFrameCallback();
+	}
+
+	/**
+	 * Delivers again after {@code pause()}, starting with the changes recorded in between.
+	 */
+	void resume() {
+		mPaused = false;
+		if (mPendingCount > 0) {
+			scheduleFrame(0);
+		}
+	}
+
+	protected void removeFrameCallback() {
+		if (mFrameCallbackPosted) {
+			mSeekBar.getUiChoreographer().removeFrameCallback(mFrameCallback);
+			mFrameCallbackPosted = false;
+		}
+	}
+
+	/**
+	 * Sets the minimum time between two batches. Changes made in between are coalesced to the latest progress of each pointer.
+	 * @param intervalMs The interval in milliseconds, or 0 to deliver on every frame with changes.
+	 */
+	public void setThrottleInterval(long intervalMs) {
+		mThrottleNanos = Math.max(0L, intervalMs) * 1000000L;
+	}
+
+	/**
+	 * Gets the minimum time between two batches.
+	 * @return The interval in milliseconds.
+	 */
+	public long getThrottleInterval() {
+		return mThrottleNanos / 1000000L;
+	}
+
+	/**
+	 * Sets how long no pointer may change before a batch is delivered, so only settled progress is delivered.
+	 * @param intervalMs The interval in milliseconds, or 0 to not wait.
+	 */
+	public void setSettleInterval(long intervalMs) {
+		mSettleNanos = Math.max(0L, intervalMs) * 1000000L;
+	}
+
+	/**
+	 * Gets how long no pointer may change before a batch is delivered.
+	 * @return The interval in milliseconds.
+	 */
+	public long getSettleInterval() {
+		return mSettleNanos / 1000000L;
+	}
+
+	/**
+	 * Sets whether a pointer is left out of a batch when its progress equals the one last delivered for it,
+	 * for example after it was dragged away and back between two batches.
+	 * @param distinctUntilChanged True to leave such pointers out.
+	 */
+	public void setDistinctUntilChanged(boolean distinctUntilChanged) {
+		mDistinctUntilChanged = distinctUntilChanged;
+	}
+
+	/**
+	 * Gets whether unchanged pointers are left out of batches.
+	 * @return Boolean value of true if distinct-until-changed is enabled.
+	 */
+	public boolean isDistinctUntilChanged() {
+		return mDistinctUntilChanged;
+	}
+
+	/**
+	 * Gets whether the stream was closed with {@code CircularSeekBar.closeProgressStream()}.
+	 */
+	public boolean isClosed() {
+		return mClosed;
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ *
+ * Modifications Copyright 2017 Joseph Budic
+ *
+ * -----------------------------------------------------------
+ *
+ * Unmodified code is Copyright 2013 Matt Joseph
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * -----------------------------------------------------------
+
+ */
+
+package com.wearelast.mpcs;
+
+import java.util.Arrays;
+
+/**
+ * Runtime cost counters of a CircularSeekBar: recalculations, draw time, listener time
+ * and the latency from a touch to the next draw.
+ *
+ * The seekbar records into its own instance on the UI thread, using only primitive fields,
+ * so collection takes no lock and allocates nothing. Use {@code CircularSeekBar.getMetrics()}
+ * to copy the counters into a snapshot that can be handed to another thread.
+ *
+ * Durations are in nanoseconds. Histograms have {@code HISTOGRAM_BUCKETS} buckets; bucket {@code i}
+ * counts durations up to {@code getBucketUpperBoundNanos(i)}, and the last bucket counts everything longer.
+ */
+public class SeekBarMetrics {
+
+	/**
+	 * Upper bounds of the histogram buckets, in nanoseconds: 0.25ms doubling up to 32ms.
+	 */
+	protected static final long[] BUCKET_UPPER_BOUNDS_NANOS = {
+			250000L, 500000L, 1000000L, 2000000L, 4000000L, 8000000L, 16000000L, 32000000L
+	};
+
+	/**
+	 * Number of histogram buckets, including the last, unbounded one.
+	 */
+	public static final int HISTOGRAM_BUCKETS = BUCKET_UPPER_BOUNDS_NANOS.length + 1;
+
+	protected long mRecalculateAllCount;
+	protected long mPointerRecalculationCount;
+
+	protected long mDrawCount;
+	protected long mDrawTotalNanos;
+	protected long mDrawMaxNanos;
+	protected final long[] mDrawHistogram = new long[HISTOGRAM_BUCKETS];
+
+	protected long mDispatchCount;
+	protected long mDispatchTotalNanos;
+	protected long mDispatchMaxNanos;
+
+	protected long mTouchToDrawCount;
+	protected long mTouchToDrawTotalNanos;
+	protected long mTouchToDrawMaxNanos;
+	protected final long[] mTouchToDrawHistogram = new long[HISTOGRAM_BUCKETS];
+
+	void countRecalculateAll() {
+		mRecalculateAllCount++;
+	}
+
+	void countPointerRecalculation() {
+		mPointerRecalculationCount++;
+	}
+
+	void recordDraw(long nanos) {
+		mDrawCount++;
+		mDrawTotalNanos += nanos;
+		mDrawMaxNanos = Math.max(mDrawMaxNanos, nanos);
+		mDrawHistogram[bucketFor(nanos)]++;
+	}
+
+	void recordDispatch(long nanos) {
+		mDispatchCount++;
+		mDispatchTotalNanos += nanos;
+		mDispatchMaxNanos = Math.max(mDispatchMaxNanos, nanos);
+	}
+
+	void recordTouchToDraw(long nanos) {
+		mTouchToDrawCount++;
+		mTouchToDrawTotalNanos += nanos;
+		mTouchToDrawMaxNanos = Math.max(mTouchToDrawMaxNanos, nanos);
+		mTouchToDrawHistogram[bucketFor(nanos)]++;
+	}
+
+	protected static int bucketFor(long nanos) {
+		for (int i = 0; i < BUCKET_UPPER_BOUNDS_NANOS.length; i++) {
+			if (nanos <= BUCKET_UPPER_BOUNDS_NANOS[i]) {
+				return i;
+			}
+		}
+		return BUCKET_UPPER_BOUNDS_NANOS.length;
+	}
+
+	/**
+	 * Get the upper bound of a histogram bucket.
+	 * @param bucket The bucket, below {@code HISTOGRAM_BUCKETS}.
+	 * @return The bound in nanoseconds, or {@code Long.MAX_VALUE} for the last bucket.
+	 */
+	public static long getBucketUpperBoundNanos(int bucket) {
+		return (bucket < BUCKET_UPPER_BOUNDS_NANOS.length) ? BUCKET_UPPER_BOUNDS_NANOS[bucket] : Long.MAX_VALUE;
+	}
+
+	/**
+	 * Copies every counter from another instance. Does not allocate.
+	 * @param other The metrics to copy.
+	 */
+	public void set(SeekBarMetrics other) {
+		mRecalculateAllCount = other.mRecalculateAllCount;
+		mPointerRecalculationCount = other.mPointerRecalculationCount;
+		mDrawCount = other.mDrawCount;
+		mDrawTotalNanos = other.mDrawTotalNanos;
+		mDrawMaxNanos = other.mDrawMaxNanos;
+		System.arraycopy(other.mDrawHistogram, 0, mDrawHistogram, 0, HISTOGRAM_BUCKETS);
+		mDispatchCount = other.mDispatchCount;
+		mDispatchTotalNanos = other.mDispatchTotalNanos;
+		mDispatchMaxNanos = other.mDispatchMaxNanos;
+		mTouchToDrawCount = other.mTouchToDrawCount;
+		mTouchToDrawTotalNanos = other.mTouchToDrawTotalNanos;
+		mTouchToDrawMaxNanos = other.mTouchToDrawMaxNanos;
+		System.arraycopy(other.mTouchToDrawHistogram, 0, mTouchToDrawHistogram, 0, HISTOGRAM_BUCKETS);
+	}
+
+	/**
+	 * Sets every counter back to zero.
+	 */
+	public void reset() {
+		mRecalculateAllCount = 0;
+		mPointerRecalculationCount = 0;
+		mDrawCount = 0;
+		mDrawTotalNanos = 0;
+		mDrawMaxNanos = 0;
+		Arrays.fill(mDrawHistogram, 0);
+		mDispatchCount = 0;
+		mDispatchTotalNanos = 0;
+		mDispatchMaxNanos = 0;
+		mTouchToDrawCount = 0;
+		mTouchToDrawTotalNanos = 0;
+		mTouchToDrawMaxNanos = 0;
+		Arrays.fill(mTouchToDrawHistogram, 0);
+	}
+
+	/**
+	 * Get the number of full rebuilds of the circle and every pointer.
+	 */
+	public long getRecalculateAllCount() {
+		return mRecalculateAllCount;
+	}
+
+	/**
+	 * Get the number of single-pointer recalculations.
+	 */
+	public long getPointerRecalculationCount() {
+		return mPointerRecalculationCount;
+	}
+
+	public long getDrawCount() {
+		return mDrawCount;
+	}
+
+	public long getDrawTotalNanos() {
+		return mDrawTotalNanos;
+	}
+
+	public long getDrawMaxNanos() {
+		return mDrawMaxNanos;
+	}
+
+	/**
+	 * Get the number of draws that fell in a histogram bucket.
+	 * @param bucket The bucket, below {@code HISTOGRAM_BUCKETS}.
+	 */
+	public long getDrawHistogram(int bucket) {
+		return mDrawHistogram[bucket];
+	}
+
+	/**
+	 * Get the number of listener calls.
+	 */
+	public long getDispatchCount() {
+		return mDispatchCount;
+	}
+
+	public long getDispatchTotalNanos() {
+		return mDispatchTotalNanos;
+	}
+
+	public long getDispatchMaxNanos() {
+		return mDispatchMaxNanos;
+	}
+
+	/**
+	 * Get the number of draws that followed a touch move.
+	 */
+	public long getTouchToDrawCount() {
+		return mTouchToDrawCount;
+	}
+
+	public long getTouchToDrawTotalNanos() {
+		return mTouchToDrawTotalNanos;
+	}
+
+	public long getTouchToDrawMaxNanos() {
+		return mTouchToDrawMaxNanos;
+	}
+
+	/**
+	 * Get the number of touch-to-draw latencies that fell in a histogram bucket.
+	 * @param bucket The bucket, below {@code HISTOGRAM_BUCKETS}.
+	 */
+	public long getTouchToDrawHistogram(int bucket) {
+		return mTouchToDrawHistogram[bucket];
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ *
+ * Modifications Copyright 2017 Joseph Budic
+ *
+ * -----------------------------------------------------------
+ *
+ * Unmodified code is Copyright 2013 Matt Joseph
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * -----------------------------------------------------------
+
+ */
+
+package com.wearelast.mpcs;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hot paths of CircularSeekBar, measured on their CircularSeekBarModel counterparts.
+ *
+ * Pointers are spread evenly around a full circle, 100 steps apart, so every pointer count
+ * has the same spacing in progress. Drags move the middle pointer by a quarter of that spacing
+ * and back, so it never passes a neighbor and never reaches a lock.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CircularSeekBarModelBenchmark {
+
+	protected static final float RADIUS = 100f;
+	protected static final int STEPS_PER_POINTER = 100;
+
+	@Param({"1", "10", "100", "1000", "10000"})
+	public int pointerCount;
+
+	protected CircularSeekBarModel mModel;
+	protected int mMiddle;
+
+	/**
+	 * Touch positions, relative to the center, on either side of the middle pointer.
+	 */
+	protected final float[] mMoveX = new float[2];
+	protected final float[] mMoveY = new float[2];
+
+	/**
+	 * Touch positions, relative to the center, spread around the ring for the hit test.
+	 */
+	protected float[] mHitX;
+	protected float[] mHitY;
+
+	protected int mStep;
+
+	@Setup
+	public void setUp() {
+		mModel = new CircularSeekBarModel();
+		mModel.setArc(270f, 270f);
+		mModel.setMax(pointerCount * STEPS_PER_POINTER);
+		mModel.setRadii(RADIUS, RADIUS);
+		mModel.setTouchBand(RADIUS * 0.7f, RADIUS * 1.3f);
+		mModel.setPointerRadius(RADIUS * 0.1f);
+		mModel.setLockEnabled(false);
+		mModel.ensureCapacity(pointerCount);
+		for (int i = 0; i < pointerCount; i++) {
+			int index = mModel.addPointer();
+			mModel.setProgress(index, (i * STEPS_PER_POINTER) + (STEPS_PER_POINTER / 2));
+		}
+		mModel.calculateAll();
+		mModel.sortPointers();
+		mMiddle = pointerCount / 2;
+
+		float angle = mModel.mPointers.angle[mMiddle];
+		float quarterSpacing = mModel.getTotalDegrees() / pointerCount / 4f;
+		for (int i = 0; i < 2; i++) {
+			double radians = Math.toRadians(angle + (i == 0 ? quarterSpacing : -quarterSpacing));
+			mMoveX[i] = (float) (RADIUS * Math.cos(radians));
+			mMoveY[i] = (float) (RADIUS * Math.sin(radians));
+		}
+		mModel.touchDown(0, mModel.mPointers.x[mMiddle], mModel.mPointers.y[mMiddle]);
+
+		mHitX = new float[64];
+		mHitY = new float[64];
+		for (int i = 0; i < mHitX.length; i++) {
+			double radians = Math.toRadians(i * 360.0 / mHitX.length);
+			mHitX[i] = (float) (RADIUS * Math.cos(radians));
+			mHitY[i] = (float) (RADIUS * Math.sin(radians));
+		}
+	}
+
+	/**
+	 * One ACTION_MOVE sample of a drag, including the gang move of the pointers ahead of it.
+	 */
+	@Benchmark
+	public int touchMove() {
+		int side = (mStep++) & 1;
+		mModel.touchMove(0, mMoveX[side], mMoveY[side]);
+		mModel.clearChanged();
+		return mModel.getProgress(mMiddle);
+	}
+
+	@Benchmark
+	public int setGangProgress() {
+		float prior = mModel.getExactProgress(mMiddle);
+		int delta = (((mStep++) & 1) == 0) ? STEPS_PER_POINTER / 4 : -(STEPS_PER_POINTER / 4);
+		mModel.setExactProgress(mMiddle, prior + delta);
+		mModel.setGangProgress(mMiddle, prior);
+		int changed = mModel.getChangedCount();
+		mModel.clearChanged();
+		return changed;
+	}
+
+	/**
+	 * Alternates between two maxes, so every pointer changes on every call.
+	 */
+	@Benchmark
+	public int distributeProgress() {
+		mModel.setMax((((mStep++) & 1) == 0) ? pointerCount * STEPS_PER_POINTER : pointerCount * STEPS_PER_POINTER * 2);
+		mModel.distributeProgress();
+		int changed = mModel.getChangedCount();
+		mModel.clearChanged();
+		return changed;
+	}
+
+	/**
+	 * Neighbor lookup with the sorted order already up to date.
+	 */
+	@Benchmark
+	public int getRelativeProgress() {
+		mStep = (mStep + 1) % pointerCount;
+		return mModel.getRelativeProgress(mStep);
+	}
+
+	/**
+	 * A drag sample as the listener sees it: the pointer moves, is recalculated,
+	 * and its relative progress is read, which updates the sorted order first.
+	 */
+	@Benchmark
+	public int dragSampleRelativeProgress() {
+		int delta = (((mStep++) & 1) == 0) ? STEPS_PER_POINTER / 4 : -(STEPS_PER_POINTER / 4);
+		mModel.setProgress(mMiddle, mModel.getProgress(mMiddle) + delta);
+		mModel.calculatePointer(mMiddle);
+		return mModel.getRelativeProgress(mMiddle);
+	}
+
+	/**
+	 * The hit test of an ACTION_DOWN, at a different spot of the ring on every call.
+	 */
+	@Benchmark
+	public int calculatePointerTouched() {
+		mStep = (mStep + 1) % mHitX.length;
+		float touchAngle = mModel.calculateTouchAngle(mHitX[mStep], mHitY[mStep]);
+		return mModel.calculatePointerTouched(touchAngle, mModel.getTouchEventRadius());
+	}
+
+	@Benchmark
+	public float calculateAll() {
+		mModel.calculateAll();
+		return mModel.mPointers.x[mMiddle];
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ *
+ * Modifications Copyright 2017 Joseph Budic
+ *
+ * -----------------------------------------------------------
+ *
+ * Unmodified code is Copyright 2013 Matt Joseph
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * -----------------------------------------------------------
+
+ */
+
+package com.wearelast.mpcs;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Placing one thumb at the end of its progress arc: the closed-form trig of
+ * {@code CircularSeekBarModel.calculatePointerXYPosition()} against the {@code PathMeasure} lookup it replaced.
+ *
+ * PathMeasure needs the Android runtime, so {@code pathMeasure} reproduces its work on the JVM:
+ * a new measure per call, the arc flattened into chords within half a pixel, and a walk along
+ * the chord lengths to the end of the contour. Its numbers are a JVM proxy, not a measurement of
+ * PathMeasure itself; measuring that takes an on-device benchmark, for example with androidx.benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointerPositionBenchmark {
+
+	protected static final float RADIUS = 300f;
+	protected static final int POINTERS = 64;
+
+	/**
+	 * Maximum distance between the arc and a chord, in pixels, as used when measuring curves.
+	 */
+	protected static final float TOLERANCE = 0.5f;
+
+	protected CircularSeekBarModel mModel;
+	protected int mStep;
+
+	@Setup
+	public void setUp() {
+		mModel = new CircularSeekBarModel();
+		mModel.setArc(270f, 270f);
+		mModel.setRadii(RADIUS, RADIUS);
+		for (int i = 0; i < POINTERS; i++) {
+			int index = mModel.addPointer();
+			mModel.setProgress(index, (i * mModel.getMax()) / POINTERS);
+		}
+		mModel.calculateAll();
+	}
+
+	@Benchmark
+	public float closedForm() {
+		mStep = (mStep + 1) % POINTERS;
+		mModel.calculatePointerXYPosition(mStep);
+		return mModel.mPointers.x[mStep];
+	}
+
+	@Benchmark
+	public float pathMeasure() {
+		mStep = (mStep + 1) % POINTERS;
+		float startAngle = mModel.getStartAngle();
+		float sweep = mModel.mPointers.sweep[mStep];
+		float[] position = new ArcMeasure(startAngle, sweep, RADIUS, RADIUS).getEndPosition();
+		return position[0];
+	}
+
+	/**
+	 * A flattened arc with its cumulative chord lengths, allocated per lookup like a {@code PathMeasure}.
+	 */
+	protected static class ArcMeasure {
+
+		protected final float[] mPoints;
+		protected final float[] mLengths;
+		protected final int mSegments;
+
+		ArcMeasure(float startAngle, float sweep, float width, float height) {
+			float radius = Math.max(width, height);
+			double maxStep = 2.0 * Math.acos(1.0 - (TOLERANCE / radius));
+			mSegments = Math.max(1, (int) Math.ceil(Math.toRadians(sweep) / maxStep));
+			mPoints = new float[(mSegments + 1) * 2];
+			mLengths = new float[mSegments];
+			double start = Math.toRadians(startAngle);
+			double step = Math.toRadians(sweep) / mSegments;
+			for (int i = 0; i <= mSegments; i++) {
+				mPoints[i * 2] = (float) (width * Math.cos(start + (step * i)));
+				mPoints[(i * 2) + 1] = (float) (height * Math.sin(start + (step * i)));
+			}
+			float length = 0f;
+			for (int i = 0; i < mSegments; i++) {
+				float dx = mPoints[(i + 1) * 2] - mPoints[i * 2];
+				float dy = mPoints[((i + 1) * 2) + 1] - mPoints[(i * 2) + 1];
+				length += (float) Math.sqrt((dx * dx) + (dy * dy));
+				mLengths[i] = length;
+			}
+		}
+
+		/**
+		 * Finds the segment at the full length with a binary search, and interpolates within it.
+		 */
+		float[] getEndPosition() {
+			float distance = mLengths[mSegments - 1];
+			int low = 0;
+			int high = mSegments - 1;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (mLengths[mid] < distance) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			float segmentStart = (low == 0) ? 0f : mLengths[low - 1];
+			float segmentLength = mLengths[low] - segmentStart;
+			float t = (segmentLength > 0f) ? (distance - segmentStart) / segmentLength : 0f;
+			float[] position = new float[2];
+			position[0] = mPoints[low * 2] + ((mPoints[(low + 1) * 2] - mPoints[low * 2]) * t);
+			position[1] = mPoints[(low * 2) + 1] + ((mPoints[((low + 1) * 2) + 1] - mPoints[(low * 2) + 1]) * t);
+			return position;
+		}
+	}
+}
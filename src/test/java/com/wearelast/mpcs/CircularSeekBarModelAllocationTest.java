@@ -0,0 +1,129 @@
+/*
+ *
+ * Modifications Copyright 2017 Joseph Budic
+ *
+ * -----------------------------------------------------------
+ *
+ * Unmodified code is Copyright 2013 Matt Joseph
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * -----------------------------------------------------------
+
+ */
+
+package com.wearelast.mpcs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Guards the touch path against allocations: once warmed up, dragging a pointer must not allocate.
+ */
+public class CircularSeekBarModelAllocationTest {
+
+	protected static final float RADIUS = 100f;
+	protected static final int POINTERS = 100;
+	protected static final int TOUCH_ID = 7;
+	protected static final int WARMUP_GESTURES = 2000;
+	protected static final int MEASURED_MOVES = 10000;
+
+	protected com.sun.management.ThreadMXBean mThreadBean;
+	protected long mThreadId;
+	protected CircularSeekBarModel mModel;
+	protected final int[] mSegments = new int[POINTERS];
+
+	@Before
+	public void setUp() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		mThreadBean = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(mThreadBean.isThreadAllocatedMemorySupported());
+		mThreadBean.setThreadAllocatedMemoryEnabled(true);
+		mThreadId = Thread.currentThread().getId();
+
+		mModel = new CircularSeekBarModel();
+		mModel.setArc(270f, 270f);
+		mModel.setMax(POINTERS * 10);
+		mModel.setRadii(RADIUS, RADIUS);
+		mModel.setTouchBand(RADIUS * 0.7f, RADIUS * 1.3f);
+		mModel.setPointerRadius(RADIUS * 0.1f);
+		for (int i = 0; i < POINTERS; i++) {
+			int index = mModel.addPointer();
+			mModel.setProgress(index, (i * 10) + 5);
+		}
+		mModel.calculateAll();
+	}
+
+	@Test
+	public void touchMoveDoesNotAllocate() {
+		int pointer = POINTERS / 2;
+		for (int i = 0; i < WARMUP_GESTURES; i++) {
+			touchDown(pointer);
+			for (int move = 0; move < 50; move++) {
+				touchMove(pointer, move);
+			}
+			touchUp();
+		}
+
+		touchDown(pointer);
+		// What reading the counter costs by itself, so only the moves are counted
+		long before = mThreadBean.getThreadAllocatedBytes(mThreadId);
+		long overhead = mThreadBean.getThreadAllocatedBytes(mThreadId) - before;
+		before = mThreadBean.getThreadAllocatedBytes(mThreadId);
+		for (int move = 0; move < MEASURED_MOVES; move++) {
+			touchMove(pointer, move);
+		}
+		long allocated = mThreadBean.getThreadAllocatedBytes(mThreadId) - before - overhead;
+		touchUp();
+
+		assertEquals("Bytes allocated by " + MEASURED_MOVES + " touch moves", 0L, Math.max(0L, allocated));
+	}
+
+	protected void touchDown(int pointer) {
+		mModel.calculateAll();
+		// The neighbors are under the touch too, so the first added of them is grabbed
+		int grabbed = mModel.onTouch(CircularSeekBarModel.ACTION_DOWN, TOUCH_ID, mModel.mPointers.x[pointer], mModel.mPointers.y[pointer]);
+		assertTrue("a pointer is grabbed", grabbed >= 0);
+	}
+
+	/**
+	 * One ACTION_MOVE sample as the view handles it: the model moves the dragged pointer and the pointers
+	 * ahead of it, the moved pointers are recalculated and the listener reads the relative progress.
+	 * The touch swings back and forth over the neighbors of the dragged pointer.
+	 */
+	protected void touchMove(int pointer, int move) {
+		float swing = (float) Math.sin(move * 0.05) * 20f;
+		double radians = Math.toRadians(mModel.getStartAngle() + (360f * (pointer * 10 + 5) / mModel.getMax()) + swing);
+		int moved = mModel.onTouch(CircularSeekBarModel.ACTION_MOVE, TOUCH_ID, (float) (RADIUS * Math.cos(radians)), (float) (RADIUS * Math.sin(radians)));
+		if (moved >= 0) {
+			mModel.calculatePointer(moved);
+			for (int i = 0; i < mModel.getChangedCount(); i++) {
+				mModel.calculatePointer(mModel.getChangedPointer(i));
+			}
+			mModel.clearChanged();
+			mModel.getRelativeProgress(moved);
+			mModel.getSegments(mSegments);
+		}
+	}
+
+	protected void touchUp() {
+		mModel.onTouch(CircularSeekBarModel.ACTION_UP, TOUCH_ID, 0f, 0f);
+	}
+}
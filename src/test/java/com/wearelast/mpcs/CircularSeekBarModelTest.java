@@ -0,0 +1,520 @@
+/*
+ *
+ * Modifications Copyright 2017 Joseph Budic
+ *
+ * -----------------------------------------------------------
+ *
+ * Unmodified code is Copyright 2013 Matt Joseph
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * -----------------------------------------------------------
+
+ */
+
+package com.wearelast.mpcs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Behavior of CircularSeekBarModel: progress, gang moves, the sorted index and the hit test.
+ */
+public class CircularSeekBarModelTest {
+
+	protected static final float RADIUS = 100f;
+
+	/**
+	 * Creates a model over the full circle with one pointer per progress value, all calculated.
+	 */
+	protected static CircularSeekBarModel createModel(int max, int... progresses) {
+		return createModel(270f, 270f, max, progresses);
+	}
+
+	/**
+	 * Creates a model over the given arc with one pointer per progress value, all calculated.
+	 */
+	protected static CircularSeekBarModel createModel(float startAngle, float endAngle, int max, int... progresses) {
+		CircularSeekBarModel model = new CircularSeekBarModel();
+		model.setArc(startAngle, endAngle);
+		model.setMax(max);
+		model.setRadii(RADIUS, RADIUS);
+		model.setTouchBand(RADIUS * 0.7f, RADIUS * 1.3f);
+		model.setPointerRadius(RADIUS * 0.1f);
+		for (int progress : progresses) {
+			model.setProgress(model.addPointer(), progress);
+		}
+		model.calculateAll();
+		return model;
+	}
+
+	/**
+	 * Moves a pointer the way a drag does, with the pointers ahead of it, and recalculates the moved pointers.
+	 */
+	protected static void gangMove(CircularSeekBarModel model, int index, int progress) {
+		float prior = model.getExactProgress(index);
+		model.setProgress(index, progress);
+		model.setGangProgress(index, prior);
+		model.calculatePointer(index);
+		for (int i = 0; i < model.getChangedCount(); i++) {
+			model.calculatePointer(model.getChangedPointer(i));
+		}
+		model.clearChanged();
+	}
+
+	/**
+	 * Get the X coordinate, relative to the center, of a touch on the ring at the angle of a progress value.
+	 */
+	protected static float touchX(CircularSeekBarModel model, float progress) {
+		return (float) (RADIUS * Math.cos(Math.toRadians(angleOf(model, progress))));
+	}
+
+	/**
+	 * Get the Y coordinate, relative to the center, of a touch on the ring at the angle of a progress value.
+	 */
+	protected static float touchY(CircularSeekBarModel model, float progress) {
+		return (float) (RADIUS * Math.sin(Math.toRadians(angleOf(model, progress))));
+	}
+
+	protected static float angleOf(CircularSeekBarModel model, float progress) {
+		return (progress / model.getMax() * model.getTotalDegrees() + model.getStartAngle()) % 360f;
+	}
+
+	/**
+	 * Sends a move sample at the angle of a progress value, and recalculates the moved pointers like the view does.
+	 * @return The pointer that was moved, or -1.
+	 */
+	protected static int drag(CircularSeekBarModel model, int touchId, float progress) {
+		int index = model.onTouch(CircularSeekBarModel.ACTION_MOVE, touchId, touchX(model, progress), touchY(model, progress));
+		if (index >= 0) {
+			model.calculatePointer(index);
+		}
+		for (int i = 0; i < model.getChangedCount(); i++) {
+			model.calculatePointer(model.getChangedPointer(i));
+		}
+		model.clearChanged();
+		return index;
+	}
+
+	/**
+	 * Checks the sorted order, both neighbors of every pointer and the segments against a linear scan.
+	 */
+	protected static void assertMatchesBruteForce(CircularSeekBarModel model) {
+		int count = model.getPointerCount();
+		int[] segments = new int[count];
+		assertEquals(count, model.getSegments(segments));
+		assertEquals(count, model.getSortedCount());
+
+		boolean[] seen = new boolean[count];
+		float[] sweeps = new float[count];
+		for (int i = 0; i < count; i++) {
+			sweeps[i] = model.mPointers.sweep[i];
+		}
+		Arrays.sort(sweeps);
+		for (int position = 0; position < count; position++) {
+			int index = model.getSortedPointer(position);
+			assertTrue("each pointer sorted once", !seen[index]);
+			seen[index] = true;
+			assertEquals("sweep at position " + position, sweeps[position], model.mPointers.sweep[index], 0f);
+		}
+
+		int[] progresses = new int[count];
+		for (int i = 0; i < count; i++) {
+			progresses[i] = model.getProgress(i);
+		}
+		Arrays.sort(progresses);
+		for (int position = 0; position < count; position++) {
+			int expectedLower = 0;
+			for (int j = 0; j < count; j++) {
+				if (progresses[j] < progresses[position]) {
+					expectedLower = progresses[j];
+				}
+			}
+			assertEquals("segment at position " + position, progresses[position] - expectedLower, segments[position]);
+		}
+
+		for (int i = 0; i < count; i++) {
+			int progress = model.getProgress(i);
+			int lower = -1;
+			int upper = -1;
+			for (int j = 0; j < count; j++) {
+				int other = model.getProgress(j);
+				if (other < progress && (lower < 0 || other > model.getProgress(lower))) {
+					lower = j;
+				}
+				if (other > progress && (upper < 0 || other < model.getProgress(upper))) {
+					upper = j;
+				}
+			}
+			assertNeighbor("lower neighbor of " + i, model, lower, model.getLowerNeighbor(i));
+			assertNeighbor("upper neighbor of " + i, model, upper, model.getUpperNeighbor(i));
+			assertEquals("relative progress of " + i, progress - ((lower < 0) ? 0 : model.getProgress(lower)), model.getRelativeProgress(i));
+		}
+	}
+
+	/**
+	 * Neighbors with tied progress are interchangeable, so only their progress is compared.
+	 */
+	protected static void assertNeighbor(String message, CircularSeekBarModel model, int expected, int actual) {
+		if (expected < 0) {
+			assertEquals(message, -1, actual);
+		} else {
+			assertTrue(message, actual >= 0);
+			assertEquals(message, model.getProgress(expected), model.getProgress(actual));
+		}
+	}
+
+	/**
+	 * The hit test as it was before the sorted index: a scan of the pointers in the order they were added,
+	 * returning the first one within the pointer's radius of the touch. The original scan also fell through
+	 * to the last pointer for a touch in the gap past the end of a partial arc; that bug is left out.
+	 */
+	protected static int linearPointerTouched(CircularSeekBarModel model, float touchAngle, float touchEventRadius) {
+		if ((touchEventRadius < model.mInnerRadius + 3) || (touchEventRadius > model.mOuterRadius + 3)) {
+			return -1;
+		}
+		float pointerRadiusDegrees = (float) ((model.mPointerRadius * 180) / (Math.PI * Math.max(model.mCircleHeight, model.mCircleWidth)));
+		for (int i = 0; i < model.getPointerCount(); i++) {
+			float cwDistanceFromPointer = touchAngle - model.mPointers.angle[i];
+			cwDistanceFromPointer = (cwDistanceFromPointer < 0 ? 360f + cwDistanceFromPointer : cwDistanceFromPointer);
+			float ccwDistanceFromPointer = 360f - cwDistanceFromPointer;
+			if ((cwDistanceFromPointer <= pointerRadiusDegrees + 3) || (ccwDistanceFromPointer <= pointerRadiusDegrees + 3)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks that the hit test picks the same pointer as the linear scan for a touch at the given angle.
+	 * @return The touched pointer, or -1.
+	 */
+	protected static int assertHitMatchesLinearScan(CircularSeekBarModel model, float angle, float radius) {
+		float x = (float) (radius * Math.cos(Math.toRadians(angle)));
+		float y = (float) (radius * Math.sin(Math.toRadians(angle)));
+		float touchAngle = model.calculateTouchAngle(x, y);
+		int expected = linearPointerTouched(model, touchAngle, model.getTouchEventRadius());
+		int actual = model.calculatePointerTouched(touchAngle, model.getTouchEventRadius());
+		assertEquals("pointer touched at " + angle + " degrees", expected, actual);
+		return actual;
+	}
+
+	/**
+	 * Checks the contract of {@code getSegments()}: one value per pointer in ascending order of progress,
+	 * each equal to {@code getRelativeProgress()} of that pointer.
+	 */
+	protected static void assertSegmentsMatchRelativeProgress(CircularSeekBarModel model) {
+		int[] segments = new int[model.getPointerCount()];
+		assertEquals(model.getPointerCount(), model.getSegments(segments));
+		for (int position = 0; position < model.getSortedCount(); position++) {
+			int index = model.getSortedPointer(position);
+			if (position > 0) {
+				assertTrue("sorted by progress", model.getProgress(model.getSortedPointer(position - 1)) <= model.getProgress(index));
+			}
+			assertEquals("segment of pointer " + index, model.getRelativeProgress(index), segments[position]);
+		}
+	}
+
+	@Test
+	public void gangMoveStopsAtMax() {
+		CircularSeekBarModel model = createModel(100, 10, 50, 90);
+		gangMove(model, 0, 40);
+
+		assertEquals(40, model.getProgress(0));
+		assertEquals(80, model.getProgress(1));
+		assertEquals(100, model.getProgress(2));
+		assertEquals(model.getTotalDegrees(), model.mPointers.sweep[2], 0.01f);
+		assertEquals(40, model.getRelativeProgress(0));
+		assertEquals(40, model.getRelativeProgress(1));
+		assertEquals(20, model.getRelativeProgress(2));
+		assertSegmentsMatchRelativeProgress(model);
+	}
+
+	@Test
+	public void repeatedGangMovesPastMaxKeepProgressAndSweepConsistent() {
+		CircularSeekBarModel model = createModel(100, 5, 30, 60, 95);
+		for (int progress = 6; progress <= 90; progress += 7) {
+			gangMove(model, 0, progress);
+			for (int i = 0; i < model.getPointerCount(); i++) {
+				assertTrue("progress within max", model.getProgress(i) >= 0 && model.getProgress(i) <= 100);
+				float expectedSweep = model.getExactProgress(i) * model.getTotalDegrees() / model.getMax();
+				assertEquals("sweep of pointer " + i, expectedSweep, model.mPointers.sweep[i], 0.01f);
+			}
+			assertSegmentsMatchRelativeProgress(model);
+		}
+		assertEquals(100, model.getProgress(3));
+	}
+
+	@Test
+	public void gangMoveBackKeepsPointersAhead() {
+		CircularSeekBarModel model = createModel(100, 40, 60, 80);
+		gangMove(model, 0, 20);
+
+		assertEquals(20, model.getProgress(0));
+		assertEquals(40, model.getProgress(1));
+		assertEquals(60, model.getProgress(2));
+		assertSegmentsMatchRelativeProgress(model);
+	}
+
+	@Test
+	public void touchDownGrabsOnlyThePointerUnderTheTouch() {
+		CircularSeekBarModel model = createModel(100, 25, 50);
+
+		assertEquals(1, model.onTouch(CircularSeekBarModel.ACTION_DOWN, 7, touchX(model, 50), touchY(model, 50)));
+		assertEquals(1, model.getTouchCount());
+		assertEquals(-1, model.onTouch(CircularSeekBarModel.ACTION_POINTER_DOWN, 8, touchX(model, 75), touchY(model, 75)));
+		assertEquals(-1, model.onTouch(CircularSeekBarModel.ACTION_POINTER_DOWN, 9, 0f, 0f));
+		assertEquals(-1, model.onTouch(CircularSeekBarModel.ACTION_POINTER_DOWN, 10, touchX(model, 50) * 2f, touchY(model, 50) * 2f));
+		assertEquals(1, model.onTouch(CircularSeekBarModel.ACTION_UP, 7, 0f, 0f));
+		assertEquals(0, model.getTouchCount());
+	}
+
+	@Test
+	public void dragMovesThePointerAndThePointersAheadOfIt() {
+		CircularSeekBarModel model = createModel(100, 25, 50, 10);
+		model.onTouch(CircularSeekBarModel.ACTION_DOWN, 0, touchX(model, 25), touchY(model, 25));
+
+		assertEquals(0, drag(model, 0, 30));
+		assertEquals(0, drag(model, 0, 35));
+
+		assertEquals(35, model.getProgress(0));
+		assertEquals(60, model.getProgress(1));
+		assertEquals(10, model.getProgress(2));
+		assertEquals(model.getTotalDegrees() * 0.6f, model.mPointers.sweep[1], 0.01f);
+		assertEquals(0, model.onTouch(CircularSeekBarModel.ACTION_UP, 0, 0f, 0f));
+		assertEquals(-1, drag(model, 0, 40));
+		assertEquals(35, model.getProgress(0));
+	}
+
+	@Test
+	public void dragPastTheEndLocksAtMax() {
+		CircularSeekBarModel model = createModel(100, 90);
+		model.onTouch(CircularSeekBarModel.ACTION_DOWN, 0, touchX(model, 90), touchY(model, 90));
+
+		drag(model, 0, 99);
+		drag(model, 0, 5);
+		assertEquals(99, model.getProgress(0));
+		drag(model, 0, 10);
+		assertEquals(99, model.getProgress(0));
+
+		drag(model, 0, 96);
+		assertEquals(96, model.getProgress(0));
+	}
+
+	@Test
+	public void dragPastTheEndWrapsWhenLockIsDisabled() {
+		CircularSeekBarModel model = createModel(100, 90);
+		model.setLockEnabled(false);
+		model.onTouch(CircularSeekBarModel.ACTION_DOWN, 0, touchX(model, 90), touchY(model, 90));
+
+		drag(model, 0, 99);
+		drag(model, 0, 5);
+		assertEquals(5, model.getProgress(0));
+	}
+
+	@Test
+	public void dragBelowTheStartLocksAtZero() {
+		CircularSeekBarModel model = createModel(100, 10);
+		model.onTouch(CircularSeekBarModel.ACTION_DOWN, 0, touchX(model, 10), touchY(model, 10));
+
+		drag(model, 0, 1);
+		drag(model, 0, 95);
+		assertEquals(1, model.getProgress(0));
+	}
+
+	@Test
+	public void removingADraggedPointerDropsItsTouch() {
+		CircularSeekBarModel model = createModel(100, 20, 40);
+		model.onTouch(CircularSeekBarModel.ACTION_DOWN, 3, touchX(model, 40), touchY(model, 40));
+
+		model.removePointer(0);
+		assertEquals(0, model.getTouchPointer(0));
+		model.removePointer(0);
+		assertEquals(0, model.getTouchCount());
+		assertEquals(-1, drag(model, 3, 50));
+	}
+
+	@Test
+	public void distributeProgressSpreadsPointersEvenly() {
+		CircularSeekBarModel model = createModel(100, 0, 0, 0, 0);
+		model.distributeProgress();
+
+		assertEquals(3, model.getChangedCount());
+		for (int i = 0; i < 4; i++) {
+			assertEquals(i * 25, model.getProgress(i));
+		}
+	}
+
+	@Test
+	public void pointerAngleAndPositionFollowProgress() {
+		CircularSeekBarModel model = createModel(100, 25);
+
+		assertEquals(angleOf(model, 25), model.mPointers.angle[0], 0.001f);
+		assertEquals(model.getTotalDegrees() / 4f, model.mPointers.sweep[0], 0.001f);
+		assertEquals(touchX(model, 25), model.mPointers.x[0], 0.001f);
+		assertEquals(touchY(model, 25), model.mPointers.y[0], 0.001f);
+
+		model.setProgressBasedOnAngle(0, angleOf(model, 60));
+		assertEquals(60, model.getProgress(0));
+	}
+
+	@Test
+	public void sortedOrderMatchesBruteForceWithTies() {
+		CircularSeekBarModel model = createModel(100, 50, 20, 50, 80, 20, 20, 0, 100);
+		assertMatchesBruteForce(model);
+
+		model.setProgress(3, 50);
+		model.calculatePointer(3);
+		assertMatchesBruteForce(model);
+		model.setProgress(6, 50);
+		model.calculatePointer(6);
+		assertMatchesBruteForce(model);
+	}
+
+	@Test
+	public void sortedOrderMatchesBruteForceAcrossAddAndRemove() {
+		CircularSeekBarModel model = createModel(100, 30, 10, 70);
+		model.sortPointers();
+
+		int added = model.addPointer();
+		model.setProgress(added, 40);
+		model.calculatePointer(added);
+		assertMatchesBruteForce(model);
+
+		model.removePointer(1);
+		assertMatchesBruteForce(model);
+		model.removePointer(model.getPointerCount() - 1);
+		assertMatchesBruteForce(model);
+
+		model.clearPointers();
+		assertMatchesBruteForce(model);
+		added = model.addPointer();
+		model.setProgress(added, 5);
+		model.calculatePointer(added);
+		assertMatchesBruteForce(model);
+	}
+
+	@Test
+	public void sortedOrderMatchesBruteForceForArcCrossingZero() {
+		CircularSeekBarModel model = createModel(300f, 60f, 100, 90, 10, 50, 50, 0, 100);
+		assertMatchesBruteForce(model);
+
+		gangMove(model, 1, 40);
+		assertMatchesBruteForce(model);
+		gangMove(model, 4, 30);
+		assertMatchesBruteForce(model);
+	}
+
+	@Test
+	public void sortedOrderMatchesBruteForceUnderRandomEdits() {
+		float[][] arcs = { { 270f, 270f }, { 300f, 60f }, { 0f, 180f }, { 135f, 45f } };
+		Random random = new Random(17);
+		for (float[] arc : arcs) {
+			CircularSeekBarModel model = createModel(arc[0], arc[1], 40);
+			for (int step = 0; step < 2000; step++) {
+				int count = model.getPointerCount();
+				int operation = random.nextInt(10);
+				if (count < 3 || operation == 0) {
+					int added = model.addPointer();
+					model.setProgress(added, random.nextInt(41));
+					model.calculatePointer(added);
+				} else if (operation == 1 && count > 40) {
+					model.removePointer(random.nextInt(count));
+				} else if (operation < 5) {
+					gangMove(model, random.nextInt(count), random.nextInt(41));
+				} else {
+					int moved = 1 + random.nextInt(20);
+					for (int i = 0; i < moved; i++) {
+						int index = random.nextInt(count);
+						model.setProgress(index, random.nextInt(41));
+						model.calculatePointer(index);
+					}
+				}
+				assertMatchesBruteForce(model);
+			}
+		}
+	}
+
+	@Test
+	public void hitTestMatchesLinearScanAcrossTheArcEnd() {
+		CircularSeekBarModel model = createModel(100, 50, 100, 1, 99, 0);
+		for (float angle = 250f; angle <= 290f; angle += 0.25f) {
+			assertHitMatchesLinearScan(model, angle, RADIUS);
+		}
+		assertEquals(1, assertHitMatchesLinearScan(model, angleOf(model, 100), RADIUS));
+		assertEquals(1, assertHitMatchesLinearScan(model, angleOf(model, 99.5f), RADIUS));
+
+		model = createModel(0f, 180f, 100, 100, 0);
+		for (float angle = 0f; angle < 360f; angle += 0.5f) {
+			assertHitMatchesLinearScan(model, angle, RADIUS);
+		}
+		assertEquals(-1, assertHitMatchesLinearScan(model, 270f, RADIUS));
+	}
+
+	@Test
+	public void hitTestPicksFirstAddedOfEquidistantPointers() {
+		CircularSeekBarModel model = createModel(100, 51, 49);
+		assertEquals(0, assertHitMatchesLinearScan(model, angleOf(model, 50), RADIUS));
+
+		model = createModel(100, 10, 49, 51);
+		assertEquals(1, assertHitMatchesLinearScan(model, angleOf(model, 50), RADIUS));
+		for (float progress = 45; progress <= 55; progress += 0.1f) {
+			assertHitMatchesLinearScan(model, angleOf(model, progress), RADIUS);
+		}
+	}
+
+	@Test
+	public void hitTestPicksFirstAddedOfStackedPointers() {
+		CircularSeekBarModel model = createModel(100, 80, 30, 10, 30, 30, 90, 30);
+		assertEquals(1, assertHitMatchesLinearScan(model, angleOf(model, 30), RADIUS));
+
+		// Moving the pointers one at a time reorders the stack in the sorted index
+		int[] order = { 6, 4, 3, 1 };
+		for (int index : order) {
+			model.setProgress(index, 60);
+			model.calculatePointer(index);
+			assertHitMatchesLinearScan(model, angleOf(model, 60), RADIUS);
+		}
+		for (int index : order) {
+			model.setProgress(index, 30);
+			model.calculatePointer(index);
+			assertHitMatchesLinearScan(model, angleOf(model, 30), RADIUS);
+		}
+		assertEquals(1, assertHitMatchesLinearScan(model, angleOf(model, 30), RADIUS));
+	}
+
+	@Test
+	public void hitTestMatchesLinearScanForRandomTouches() {
+		float[][] arcs = { { 270f, 270f }, { 300f, 60f }, { 0f, 180f } };
+		Random random = new Random(6);
+		for (float[] arc : arcs) {
+			for (int round = 0; round < 50; round++) {
+				CircularSeekBarModel model = createModel(arc[0], arc[1], 100);
+				int count = 1 + random.nextInt(30);
+				for (int i = 0; i < count; i++) {
+					int index = model.addPointer();
+					model.setProgress(index, random.nextInt(101));
+					model.calculatePointer(index);
+				}
+				for (int touch = 0; touch < 200; touch++) {
+					assertHitMatchesLinearScan(model, random.nextFloat() * 360f, RADIUS * (0.5f + random.nextFloat()));
+				}
+			}
+		}
+	}
+}